@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, by default to {@code jmh-result.json}.
+ * Any standard JMH command line option is accepted and takes precedence.
+ *
+ * @author George Fitzpatrick
+ */
+public final class BenchmarkRunner {
+
+    /* ----- Fields ----- */
+
+    private static final String DEFAULT_RESULT = "jmh-result.json";
+
+    /* ----- Constructors ----- */
+
+    private BenchmarkRunner() {
+
+    }
+
+    /* ----- Methods ----- */
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) options.include(BenchmarkRunner.class.getPackageName() + ".*");
+        if (!commandLine.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!commandLine.getResult().hasValue()) options.result(DEFAULT_RESULT);
+
+        new Runner(options.build()).run();
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.support.InMemoryBucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes from an in-memory bucket over a rotating set of keys, with each algorithm, so the policy arithmetic and
+ * penalty lookup are measured without a network round trip.
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketBenchmark {
+
+    /* ----- Fields ----- */
+
+    @Param({"16", "4096"})
+    public int keys;
+
+    @Param
+    public Algorithm algorithm;
+
+    private InMemoryBucket bucket;
+    private Policy policy;
+    private String[] keyTable;
+    private int next;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() {
+        Map<Long, Duration> penalties = new LinkedHashMap<>();
+        penalties.put(5L, Duration.ofMinutes(10));
+        penalties.put(10L, Duration.ofMinutes(30));
+        penalties.put(15L, Duration.ofHours(2));
+
+        policy = new Policy();
+        policy.setLimit(60);
+        policy.setRefresh(Duration.ofMinutes(1));
+        policy.setPenalties(penalties);
+        policy.setAlgorithm(algorithm);
+
+        bucket = new InMemoryBucket();
+        keyTable = new String[keys];
+        for (int i = 0; i < keys; i++) keyTable[i] = "route:10.0." + (i >> 8) + "." + (i & 0xFF);
+    }
+
+    @Benchmark
+    public long consume() {
+        String key = keyTable[next++ & (keys - 1)];
+        return bucket.consume(key, policy, 1);
+    }
+
+}
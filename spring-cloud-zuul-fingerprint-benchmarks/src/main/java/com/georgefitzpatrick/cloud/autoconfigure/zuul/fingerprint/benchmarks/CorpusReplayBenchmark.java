@@ -0,0 +1,213 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.corpus.ClientProfile;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBanList;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalDataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus.Corpus;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter.TrustFilter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash.HashAlgorithm;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2FrameRecorder;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.JA3Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLRecord;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.netflix.zuul.filters.Route;
+import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+
+/**
+ * Replays a recorded corpus through the ClientHello parser and {@link TrustFilter} at full rate, with in-process
+ * buckets and datasets, so throughput is reproducible without a network. Pass a file recorded with
+ * {@code zuul.fingerprint.recorder} as {@code -p corpus=...}; without one, a corpus is built from the
+ * {@link ClientProfile profiles}. Each ClientHello is paired with the HTTP/2 prefaces in turn.
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorpusReplayBenchmark {
+
+    /* ----- Fields ----- */
+
+    private static final String CLIENT_HELLO = "replay.clientHello";
+    private static final String PREFACE = "replay.preface";
+
+    @Param("")
+    public String corpus;
+
+    private byte[][] clientHellos;
+    private RequestContext[] requests;
+    private TrustFilter filter;
+    private int next;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() throws IOException {
+        List<Corpus.Entry> entries = corpus.isEmpty() ? profiles() : Corpus.read(Paths.get(corpus));
+
+        List<byte[]> clientHellos = new ArrayList<>();
+        List<HTTP2FrameRecorder> prefaces = new ArrayList<>();
+        for (Corpus.Entry entry : entries) {
+            if (entry.type() == Corpus.CLIENT_HELLO) clientHellos.add(entry.payload());
+            else if (entry.type() == Corpus.HTTP2_PREFACE) prefaces.add(Corpus.decodePreface(entry.payload()));
+        }
+
+        if (clientHellos.isEmpty()) throw new IllegalStateException("No ClientHello in corpus " + corpus);
+
+        this.clientHellos = clientHellos.toArray(new byte[0][]);
+        this.requests = new RequestContext[this.clientHellos.length];
+
+        for (int i = 0; i < requests.length; i++) {
+            MockHttpServletRequest req = new MockHttpServletRequest("GET", "/");
+            req.setRemoteAddr("10.0." + (i >> 8 & 0xff) + "." + (i & 0xff));
+
+            RequestContext ctx = new RequestContext();
+            ctx.setRequest(req);
+            ctx.setResponse(new MockHttpServletResponse());
+
+            if (!prefaces.isEmpty()) {
+                req.setProtocol("HTTP/2.0");
+                ctx.set(PREFACE, prefaces.get(i % prefaces.size()));
+            }
+
+            requests[i] = ctx;
+        }
+
+        Policy policy = new Policy();
+        policy.setLimit(Long.MAX_VALUE / 2);
+        policy.setRefresh(Duration.ofMinutes(1));
+
+        FingerprintProperties properties = new FingerprintProperties();
+        properties.getPolicies().add(policy);
+
+        JA3Fingerprinter ja3 = new JA3Fingerprinter();
+        Fingerprinter replayedJa3 = ctx -> ja3.fingerprint((ClientHelloView) ctx.get(CLIENT_HELLO));
+        ConnectionRegistry registry = new ConnectionRegistry();
+
+        // mock requests have no connection to publish the preface on, so it is replayed from the context
+        HTTP2Fingerprinter http2 = new HTTP2Fingerprinter(registry);
+        Fingerprinter replayedHttp2 = ctx -> {
+            HTTP2FrameRecorder frames = (HTTP2FrameRecorder) ctx.get(PREFACE);
+            return frames != null ? http2.fingerprint(frames) : null;
+        };
+
+        List<Fingerprinter> fingerprinters = List.of(replayedJa3, replayedHttp2);
+
+        filter = new TrustFilter(properties, fingerprinters, String::equals, new FixedRouteLocator(),
+                (req, route, origin) -> route.getId() + ":" + origin, new LocalBucket(), new LocalDataset(),
+                HashAlgorithm.MD5.newHasher(), registry, new LocalBanList(1_000));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContext.testSetCurrentContext(null);
+    }
+
+    @Benchmark
+    public Object replay() throws ZuulException {
+        int index = next;
+        next = index + 1 == clientHellos.length ? 0 : index + 1;
+
+        RequestContext ctx = requests[index];
+        ctx.set(CLIENT_HELLO, new ClientHelloView().wrap(ByteBuffer.wrap(clientHellos[index])));
+        RequestContext.testSetCurrentContext(ctx);
+
+        return filter.run();
+    }
+
+    private static List<Corpus.Entry> profiles() {
+        List<Corpus.Entry> entries = new ArrayList<>();
+
+        for (ClientProfile profile : ClientProfile.values()) {
+            byte[] record = profile.record();
+            int offset = SSLRecord.HEADER_LENGTH + SSLRecord.HANDSHAKE_HEADER_LENGTH;
+            entries.add(new Corpus.Entry(Corpus.CLIENT_HELLO, Arrays.copyOfRange(record, offset, record.length)));
+        }
+
+        HTTP2FrameRecorder chrome = new HTTP2FrameRecorder();
+        chrome.addSetting(1, 65536);
+        chrome.addSetting(3, 1000);
+        chrome.addSetting(4, 6291456);
+        chrome.addSetting(6, 262144);
+        chrome.addWindowUpdate(15663105);
+        entries.add(new Corpus.Entry(Corpus.HTTP2_PREFACE, Corpus.encodePreface(chrome)));
+
+        HTTP2FrameRecorder firefox = new HTTP2FrameRecorder();
+        firefox.addSetting(1, 65536);
+        firefox.addSetting(4, 131072);
+        firefox.addSetting(5, 16384);
+        firefox.addWindowUpdate(12517377);
+        firefox.addPriority(3, false, 0, 200);
+        firefox.addPriority(5, false, 0, 100);
+        entries.add(new Corpus.Entry(Corpus.HTTP2_PREFACE, Corpus.encodePreface(firefox)));
+
+        return entries;
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class FixedRouteLocator implements RouteLocator {
+
+        /* ----- Fields ----- */
+
+        private final Route route = new Route("replay", "/**", "/", "", null, null);
+
+        /* ----- Methods ----- */
+
+        @Override
+        public Collection<String> getIgnoredPaths() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Route> getRoutes() {
+            return Collections.singletonList(route);
+        }
+
+        @Override
+        public Route getMatchingRoute(String path) {
+            return route;
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2FrameRecorder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fingerprints the connection preface of a Chrome-like client (settings and window update only)
+ * and of a Firefox-like client (settings, window update and a priority tree).
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTP2FingerprinterBenchmark {
+
+    /* ----- Fields ----- */
+
+    @Param({"chrome", "firefox"})
+    public String profile;
+
+    private HTTP2Fingerprinter fingerprinter;
+    private HTTP2FrameRecorder frames;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() {
+        frames = new HTTP2FrameRecorder();
+
+        if ("chrome".equals(profile)) {
+            frames.addSetting(1, 65536);
+            frames.addSetting(3, 1000);
+            frames.addSetting(4, 6291456);
+            frames.addSetting(6, 262144);
+            frames.addWindowUpdate(15663105);
+        } else {
+            frames.addSetting(1, 65536);
+            frames.addSetting(4, 131072);
+            frames.addSetting(5, 16384);
+            frames.addWindowUpdate(12517377);
+            frames.addPriority(3, false, 0, 200);
+            frames.addPriority(5, false, 0, 100);
+            frames.addPriority(7, false, 0, 0);
+            frames.addPriority(9, false, 7, 0);
+            frames.addPriority(11, false, 3, 0);
+            frames.addPriority(13, false, 0, 240);
+        }
+
+        frames.freeze();
+
+        fingerprinter = new HTTP2Fingerprinter(new ConnectionRegistry());
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return fingerprinter.fingerprint(frames);
+    }
+
+}
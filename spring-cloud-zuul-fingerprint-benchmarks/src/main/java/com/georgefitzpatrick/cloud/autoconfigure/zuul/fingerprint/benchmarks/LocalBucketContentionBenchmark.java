@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.support.InMemoryBucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes from a shared bucket on several threads at once. A single key is the worst case, with every thread
+ * updating the same counter.
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LocalBucketContentionBenchmark {
+
+    /* ----- Fields ----- */
+
+    @Param({"1", "1024"})
+    public int keys;
+
+    private LocalBucket localBucket;
+    private InMemoryBucket concurrentMapBucket;
+    private Policy policy;
+    private String[] keyTable;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() {
+        policy = new Policy();
+        policy.setLimit(Long.MAX_VALUE / 2);
+        policy.setRefresh(Duration.ofMinutes(1));
+
+        localBucket = new LocalBucket();
+        concurrentMapBucket = new InMemoryBucket();
+        keyTable = new String[keys];
+        for (int i = 0; i < keys; i++) keyTable[i] = "route:10.0." + (i >> 8) + "." + (i & 0xFF);
+    }
+
+    @Benchmark
+    public long localBucket(Cursor cursor) {
+        return localBucket.consume(keyTable[cursor.next() & (keys - 1)], policy, 1);
+    }
+
+    @Benchmark
+    public long concurrentMap(Cursor cursor) {
+        return concurrentMapBucket.consume(keyTable[cursor.next() & (keys - 1)], policy, 1);
+    }
+
+    /* ----- Classes ----- */
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        /* ----- Fields ----- */
+
+        private int position = ThreadLocalRandom.current().nextInt();
+
+        /* ----- Methods ----- */
+
+        private int next() {
+            return position++;
+        }
+
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.corpus.ClientProfile;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.*;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBuffers.getUint16;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBuffers.getUint8;
+
+/**
+ * Resolves every code of a ClientHello through the lookup tables and through the former linear scan.
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSLLookupBenchmark {
+
+    /* ----- Fields ----- */
+
+    @Param
+    public ClientProfile profile;
+
+    private int recordType;
+    private int protocol;
+    private int handshakeType;
+    private int[] cipherSuites;
+    private int[] extensionTypes;
+    private int[] compressionMethods;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() {
+        ByteBuffer record = ByteBuffer.wrap(profile.record());
+        recordType = getUint8(record, 0);
+        protocol = getUint16(record, 1);
+        handshakeType = getUint8(record, SSLRecord.HEADER_LENGTH);
+
+        ClientHelloView view = new ClientHelloView()
+                .wrap(record.position(SSLRecord.HEADER_LENGTH + SSLRecord.HANDSHAKE_HEADER_LENGTH));
+
+        cipherSuites = new int[view.cipherSuitesCount()];
+        for (int i = 0; i < cipherSuites.length; i++) cipherSuites[i] = view.cipherSuite(i);
+
+        extensionTypes = new int[view.extensionsCount()];
+        for (int i = 0; i < extensionTypes.length; i++) extensionTypes[i] = view.extensionType(i);
+
+        compressionMethods = new int[view.compressionMethodsCount()];
+        for (int i = 0; i < compressionMethods.length; i++) compressionMethods[i] = view.compressionMethod(i);
+    }
+
+    @Benchmark
+    public void table(Blackhole bh) {
+        SSLRecordType type = SSLRecordType.valueOf(recordType);
+        bh.consume(type);
+        bh.consume(SSLProtocol.valueOf(protocol));
+        bh.consume(SSLHandshakeType.valueOf(type, handshakeType));
+        for (int cipherSuite : cipherSuites) bh.consume(SSLCipherSuite.valueOf(cipherSuite));
+        for (int compressionMethod : compressionMethods) bh.consume(SSLCompressionMethod.valueOf(compressionMethod));
+        for (int extensionType : extensionTypes) bh.consume(SSLExtensionType.valueOf(extensionType));
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole bh) {
+        SSLRecordType type = Arrays.stream(SSLRecordType.values())
+                .filter(t -> t.value() == recordType)
+                .findFirst()
+                .orElse(SSLRecordType.UNASSIGNED);
+        bh.consume(type);
+        bh.consume(Arrays.stream(SSLProtocol.values())
+                .filter(p -> p.value() == protocol)
+                .findFirst()
+                .orElse(SSLProtocol.UNASSIGNED));
+        bh.consume(Arrays.stream(SSLHandshakeType.values())
+                .filter(h -> h.recordType() == type)
+                .filter(h -> h.value() == handshakeType)
+                .findFirst()
+                .orElse(SSLHandshakeType.UNASSIGNED));
+
+        for (int cipherSuite : cipherSuites) {
+            bh.consume(Arrays.stream(SSLCipherSuite.values())
+                    .filter(s -> s.value() == cipherSuite)
+                    .findFirst()
+                    .orElse(SSLCipherSuite.UNASSIGNED));
+        }
+
+        for (int compressionMethod : compressionMethods) {
+            bh.consume(Arrays.stream(SSLCompressionMethod.values())
+                    .filter(m -> m.value() == compressionMethod)
+                    .findFirst()
+                    .orElse(SSLCompressionMethod.UNASSIGNED));
+        }
+
+        for (int extensionType : extensionTypes) {
+            bh.consume(Arrays.stream(SSLExtensionType.values())
+                    .filter(t -> t.value() == extensionType)
+                    .findFirst()
+                    .orElse(SSLExtensionType.UNASSIGNED));
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.corpus.ClientProfile;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLRecord;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses each corpus ClientHello into the full record model and into the flyweight view.
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSLRecordBenchmark {
+
+    /* ----- Fields ----- */
+
+    @Param
+    public ClientProfile profile;
+
+    private byte[] record;
+    private ClientHelloView view;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() {
+        record = profile.record();
+        view = new ClientHelloView();
+    }
+
+    @Benchmark
+    public SSLRecord parse() {
+        return SSLRecord.parse(ByteBuffer.wrap(record));
+    }
+
+    @Benchmark
+    public ClientHelloView wrap() {
+        ByteBuffer src = ByteBuffer.wrap(record);
+        src.position(SSLRecord.HEADER_LENGTH + SSLRecord.HANDSHAKE_HEADER_LENGTH);
+        return view.wrap(src);
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves a score to its weight across a small table of thresholds.
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreWeightBenchmark {
+
+    /* ----- Fields ----- */
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double score;
+
+    private FingerprintProperties properties;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() {
+        TreeMap<Double, Long> scoreWeights = new TreeMap<>();
+        scoreWeights.put(0.25, 8L);
+        scoreWeights.put(0.5, 4L);
+        scoreWeights.put(0.75, 2L);
+
+        properties = new FingerprintProperties();
+        properties.setScoreWeights(scoreWeights);
+    }
+
+    @Benchmark
+    public long getScoreWeight() {
+        return properties.getScoreWeight(score);
+    }
+
+}
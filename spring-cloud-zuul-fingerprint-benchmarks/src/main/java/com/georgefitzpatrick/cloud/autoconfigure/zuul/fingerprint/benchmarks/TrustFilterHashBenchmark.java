@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.corpus.ClientProfile;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter.TrustFilter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash.HashAlgorithm;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.JA3Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLRecord;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes the JA3 string of each corpus ClientHello as {@link TrustFilter} does for traced requests, against the
+ * former digest-per-call approach, and against hashing the encoded fingerprint bytes directly as the handshake deny
+ * list and the untraced filter do.
+ *
+ * @author George Fitzpatrick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrustFilterHashBenchmark {
+
+    /* ----- Fields ----- */
+
+    @Param
+    public ClientProfile profile;
+
+    private ClientHelloView clientHello;
+    private JA3Fingerprinter ja3;
+    private String fingerprint;
+    private FingerprintHasher md5;
+    private FingerprintHasher murmur3;
+
+    /* ----- Methods ----- */
+
+    @Setup
+    public void setup() {
+        ByteBuffer src = ByteBuffer.wrap(profile.record());
+        src.position(SSLRecord.HEADER_LENGTH + SSLRecord.HANDSHAKE_HEADER_LENGTH);
+
+        clientHello = new ClientHelloView().wrap(src);
+        ja3 = new JA3Fingerprinter();
+        fingerprint = ja3.fingerprint(clientHello);
+        md5 = HashAlgorithm.MD5.newHasher();
+        murmur3 = HashAlgorithm.MURMUR3_128.newHasher();
+    }
+
+    @Benchmark
+    public String messageDigestPerCall() throws NoSuchAlgorithmException {
+        MessageDigest message = MessageDigest.getInstance("MD5");
+        message.update(fingerprint.getBytes());
+        return Bytes.toHexString(message.digest());
+    }
+
+    @Benchmark
+    public String md5() {
+        return md5.hash(fingerprint);
+    }
+
+    @Benchmark
+    public String murmur3() {
+        return murmur3.hash(fingerprint);
+    }
+
+    @Benchmark
+    public String fingerprintAndHashString() {
+        return md5.hash(ja3.fingerprint(clientHello));
+    }
+
+    @Benchmark
+    public String fingerprintAndHashBytes() {
+        return ja3.hash(clientHello, md5);
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.corpus;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes TLS ClientHello records byte for byte, extensions in the order they are added.
+ *
+ * @author George Fitzpatrick
+ */
+public final class ClientHelloBuilder {
+
+    /* ----- Fields ----- */
+
+    private static final int HANDSHAKE_RECORD = 0x16;
+    private static final int CLIENT_HELLO = 0x01;
+    private static final int RECORD_VERSION = 0x0301;
+    private static final int CLIENT_RANDOM_LENGTH = 32;
+
+    private final ByteArrayOutputStream extensions = new ByteArrayOutputStream();
+    private int clientVersion = 0x0303;
+    private int sessionIdLength = 32;
+    private int[] cipherSuites = new int[0];
+    private int[] compressionMethods = {0};
+    private int paddedLength;
+
+    /* ----- Methods ----- */
+
+    public @NotNull ClientHelloBuilder clientVersion(int clientVersion) {
+        this.clientVersion = clientVersion;
+        return this;
+    }
+
+    public @NotNull ClientHelloBuilder sessionIdLength(int sessionIdLength) {
+        this.sessionIdLength = sessionIdLength;
+        return this;
+    }
+
+    public @NotNull ClientHelloBuilder cipherSuites(int @NotNull ... cipherSuites) {
+        this.cipherSuites = cipherSuites;
+        return this;
+    }
+
+    public @NotNull ClientHelloBuilder compressionMethods(int @NotNull ... compressionMethods) {
+        this.compressionMethods = compressionMethods;
+        return this;
+    }
+
+    public @NotNull ClientHelloBuilder extension(int type, byte @NotNull [] body) {
+        writeUint16(extensions, type);
+        writeUint16(extensions, body.length);
+        extensions.writeBytes(body);
+        return this;
+    }
+
+    public @NotNull ClientHelloBuilder empty(int type) {
+        return extension(type, new byte[0]);
+    }
+
+    public @NotNull ClientHelloBuilder serverName(@NotNull String host) {
+        byte[] name = host.getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeUint16(body, name.length + 3);
+        body.write(0);
+        writeUint16(body, name.length);
+        body.writeBytes(name);
+        return extension(0x0000, body.toByteArray());
+    }
+
+    public @NotNull ClientHelloBuilder statusRequest() {
+        return extension(0x0005, new byte[]{1, 0, 0, 0, 0});
+    }
+
+    public @NotNull ClientHelloBuilder supportedGroups(int @NotNull ... groups) {
+        return extension(0x000A, uint16List(groups));
+    }
+
+    public @NotNull ClientHelloBuilder ecPointFormats(int @NotNull ... formats) {
+        return extension(0x000B, uint8List(formats));
+    }
+
+    public @NotNull ClientHelloBuilder signatureAlgorithms(int @NotNull ... algorithms) {
+        return extension(0x000D, uint16List(algorithms));
+    }
+
+    public @NotNull ClientHelloBuilder alpn(@NotNull String... protocols) {
+        ByteArrayOutputStream list = new ByteArrayOutputStream();
+        for (String protocol : protocols) {
+            byte[] bytes = protocol.getBytes(StandardCharsets.US_ASCII);
+            list.write(bytes.length);
+            list.writeBytes(bytes);
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeUint16(body, list.size());
+        body.writeBytes(list.toByteArray());
+        return extension(0x0010, body.toByteArray());
+    }
+
+    public @NotNull ClientHelloBuilder supportedVersions(int @NotNull ... versions) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(versions.length * 2);
+        for (int version : versions) writeUint16(body, version);
+        return extension(0x002B, body.toByteArray());
+    }
+
+    public @NotNull ClientHelloBuilder pskKeyExchangeModes(int @NotNull ... modes) {
+        return extension(0x002D, uint8List(modes));
+    }
+
+    public @NotNull ClientHelloBuilder keyShare(int @NotNull ... groupsAndLengths) {
+        ByteArrayOutputStream shares = new ByteArrayOutputStream();
+        for (int i = 0; i < groupsAndLengths.length; i += 2) {
+            writeUint16(shares, groupsAndLengths[i]);
+            writeUint16(shares, groupsAndLengths[i + 1]);
+            shares.writeBytes(new byte[groupsAndLengths[i + 1]]);
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeUint16(body, shares.size());
+        body.writeBytes(shares.toByteArray());
+        return extension(0x0033, body.toByteArray());
+    }
+
+    public @NotNull ClientHelloBuilder padTo(int paddedLength) {
+        this.paddedLength = paddedLength;
+        return this;
+    }
+
+    public byte @NotNull [] build() {
+        ByteArrayOutputStream hello = new ByteArrayOutputStream();
+        writeUint16(hello, clientVersion);
+        hello.writeBytes(new byte[CLIENT_RANDOM_LENGTH]);
+        hello.write(sessionIdLength);
+        hello.writeBytes(new byte[sessionIdLength]);
+        writeUint16(hello, cipherSuites.length * 2);
+        for (int cipherSuite : cipherSuites) writeUint16(hello, cipherSuite);
+        hello.write(compressionMethods.length);
+        for (int compressionMethod : compressionMethods) hello.write(compressionMethod);
+
+        byte[] extensions = this.extensions.toByteArray();
+        int unpadded = hello.size() + 2 + extensions.length;
+        int padding = paddedLength - unpadded - 4;
+
+        writeUint16(hello, extensions.length + (padding >= 0 ? padding + 4 : 0));
+        hello.writeBytes(extensions);
+        if (padding >= 0) {
+            writeUint16(hello, 0x0015);
+            writeUint16(hello, padding);
+            hello.writeBytes(new byte[padding]);
+        }
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.write(HANDSHAKE_RECORD);
+        writeUint16(record, RECORD_VERSION);
+        writeUint16(record, hello.size() + 4);
+        record.write(CLIENT_HELLO);
+        record.write(hello.size() >>> 16);
+        writeUint16(record, hello.size());
+        record.writeBytes(hello.toByteArray());
+        return record.toByteArray();
+    }
+
+    private static byte @NotNull [] uint16List(int @NotNull ... values) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeUint16(body, values.length * 2);
+        for (int value : values) writeUint16(body, value);
+        return body.toByteArray();
+    }
+
+    private static byte @NotNull [] uint8List(int @NotNull ... values) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(values.length);
+        for (int value : values) body.write(value);
+        return body.toByteArray();
+    }
+
+    private static void writeUint16(@NotNull ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+}
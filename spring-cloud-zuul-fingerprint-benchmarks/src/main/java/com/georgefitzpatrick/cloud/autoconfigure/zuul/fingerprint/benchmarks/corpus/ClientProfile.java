@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.corpus;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * ClientHello records modelled on the published cipher suite and extension layouts of common clients.
+ *
+ * @author George Fitzpatrick
+ */
+public enum ClientProfile {
+
+    /* ----- Enumerations ----- */
+
+    CHROME(() -> new ClientHelloBuilder()
+            .cipherSuites(0x0A0A, 0x1301, 0x1302, 0x1303, 0xC02B, 0xC02F, 0xC02C, 0xC030, 0xCCA9, 0xCCA8,
+                    0xC013, 0xC014, 0x009C, 0x009D, 0x002F, 0x0035)
+            .empty(0x1A1A)
+            .serverName("www.example.com")
+            .empty(0x0017)
+            .extension(0xFF01, new byte[]{0})
+            .supportedGroups(0x2A2A, 0x001D, 0x0017, 0x0018)
+            .ecPointFormats(0)
+            .empty(0x0023)
+            .alpn("h2", "http/1.1")
+            .statusRequest()
+            .signatureAlgorithms(0x0403, 0x0804, 0x0401, 0x0503, 0x0805, 0x0501, 0x0806, 0x0601)
+            .empty(0x0012)
+            .keyShare(0x2A2A, 1, 0x001D, 32)
+            .pskKeyExchangeModes(1)
+            .supportedVersions(0x3A3A, 0x0304, 0x0303)
+            .extension(0x001B, new byte[]{2, 0, 2})
+            .extension(0x4469, new byte[]{0, 3, 2, 'h', '2'})
+            .extension(0x4A4A, new byte[]{0})
+            .padTo(512)
+            .build()),
+
+    FIREFOX(() -> new ClientHelloBuilder()
+            .cipherSuites(0x1301, 0x1303, 0x1302, 0xC02B, 0xC02F, 0xCCA9, 0xCCA8, 0xC02C, 0xC030, 0xC00A,
+                    0xC009, 0xC013, 0xC014, 0x009C, 0x009D, 0x002F, 0x0035)
+            .serverName("www.example.com")
+            .empty(0x0017)
+            .extension(0xFF01, new byte[]{0})
+            .supportedGroups(0x001D, 0x0017, 0x0018, 0x0019, 0x0100, 0x0101)
+            .ecPointFormats(0)
+            .empty(0x0023)
+            .alpn("h2", "http/1.1")
+            .statusRequest()
+            .extension(0x0022, new byte[]{0, 8, 4, 3, 5, 3, 6, 3, 2, 3})
+            .keyShare(0x001D, 32, 0x0017, 65)
+            .supportedVersions(0x0304, 0x0303)
+            .signatureAlgorithms(0x0403, 0x0503, 0x0603, 0x0804, 0x0805, 0x0806, 0x0401, 0x0501, 0x0601,
+                    0x0203, 0x0201)
+            .pskKeyExchangeModes(1)
+            .extension(0x001C, new byte[]{0x40, 0x01})
+            .padTo(512)
+            .build()),
+
+    SAFARI(() -> new ClientHelloBuilder()
+            .cipherSuites(0x5A5A, 0x1301, 0x1302, 0x1303, 0xC02C, 0xC02B, 0xCCA9, 0xC030, 0xC02F, 0xCCA8,
+                    0xC00A, 0xC009, 0xC014, 0xC013, 0x009D, 0x009C, 0x0035, 0x002F, 0xC008, 0xC012, 0x000A)
+            .empty(0x6A6A)
+            .serverName("www.example.com")
+            .empty(0x0017)
+            .extension(0xFF01, new byte[]{0})
+            .supportedGroups(0x7A7A, 0x001D, 0x0017, 0x0018, 0x0019)
+            .ecPointFormats(0)
+            .alpn("h2", "http/1.1")
+            .statusRequest()
+            .signatureAlgorithms(0x0403, 0x0804, 0x0401, 0x0503, 0x0203, 0x0805, 0x0805, 0x0501, 0x0806,
+                    0x0601, 0x0201)
+            .empty(0x0012)
+            .keyShare(0x7A7A, 1, 0x001D, 32)
+            .pskKeyExchangeModes(1)
+            .supportedVersions(0x8A8A, 0x0304, 0x0303, 0x0302, 0x0301)
+            .extension(0x001B, new byte[]{2, 0, 1})
+            .extension(0x9A9A, new byte[]{0})
+            .padTo(512)
+            .build()),
+
+    CURL(() -> new ClientHelloBuilder()
+            .cipherSuites(0x1302, 0x1303, 0x1301, 0xC02C, 0xC030, 0x009F, 0xCCA9, 0xCCA8, 0xCCAA, 0xC02B,
+                    0xC02F, 0x009E, 0xC024, 0xC028, 0x006B, 0xC023, 0xC027, 0x0067, 0xC00A, 0xC014,
+                    0x0039, 0xC009, 0xC013, 0x0033, 0x009D, 0x009C, 0x003D, 0x003C, 0x0035, 0x002F,
+                    0x00FF)
+            .serverName("www.example.com")
+            .ecPointFormats(0, 1, 2)
+            .supportedGroups(0x001D, 0x0017, 0x001E, 0x0019, 0x0018)
+            .empty(0x0023)
+            .alpn("h2", "http/1.1")
+            .empty(0x0016)
+            .empty(0x0017)
+            .signatureAlgorithms(0x0403, 0x0503, 0x0603, 0x0807, 0x0808, 0x0809, 0x080A, 0x080B, 0x0804,
+                    0x0805, 0x0806, 0x0401, 0x0501, 0x0601, 0x0303, 0x0203, 0x0301, 0x0201, 0x0402,
+                    0x0502, 0x0602)
+            .supportedVersions(0x0304, 0x0303, 0x0302, 0x0301)
+            .pskKeyExchangeModes(1)
+            .keyShare(0x001D, 32)
+            .build()),
+
+    GO(() -> new ClientHelloBuilder()
+            .cipherSuites(0xC02B, 0xC02F, 0xC02C, 0xC030, 0xCCA9, 0xCCA8, 0xC009, 0xC013, 0xC00A, 0xC014,
+                    0x009C, 0x009D, 0x002F, 0x0035, 0xC012, 0x000A, 0x1301, 0x1302, 0x1303)
+            .serverName("www.example.com")
+            .statusRequest()
+            .supportedGroups(0x001D, 0x0017, 0x0018, 0x0019)
+            .ecPointFormats(0)
+            .empty(0x0023)
+            .signatureAlgorithms(0x0804, 0x0403, 0x0807, 0x0805, 0x0806, 0x0401, 0x0501, 0x0601, 0x0503,
+                    0x0603, 0x0201, 0x0203)
+            .extension(0xFF01, new byte[]{0})
+            .alpn("h2", "http/1.1")
+            .empty(0x0012)
+            .supportedVersions(0x0304, 0x0303, 0x0302, 0x0301)
+            .keyShare(0x001D, 32)
+            .pskKeyExchangeModes(1)
+            .build()),
+
+    PYTHON_REQUESTS(() -> new ClientHelloBuilder()
+            .cipherSuites(0x1302, 0x1303, 0x1301, 0xC02C, 0xC030, 0xC02B, 0xC02F, 0xCCA9, 0xCCA8, 0x009F,
+                    0x009E, 0xCCAA, 0xC0AF, 0xC0AD, 0xC0AE, 0xC0AC, 0xC024, 0xC028, 0xC023, 0xC027,
+                    0xC00A, 0xC014, 0xC009, 0xC013, 0xC0A3, 0xC09F, 0xC0A2, 0xC09E, 0x006B, 0x0067,
+                    0x0039, 0x0033, 0x009D, 0x009C, 0xC0A1, 0xC09D, 0xC0A0, 0xC09C, 0x003D, 0x003C,
+                    0x0035, 0x002F, 0x00FF)
+            .serverName("www.example.com")
+            .ecPointFormats(0, 1, 2)
+            .supportedGroups(0x001D, 0x0017, 0x001E, 0x0019, 0x0018)
+            .empty(0x0023)
+            .empty(0x0016)
+            .empty(0x0017)
+            .signatureAlgorithms(0x0403, 0x0503, 0x0603, 0x0807, 0x0808, 0x0809, 0x080A, 0x080B, 0x0804,
+                    0x0805, 0x0806, 0x0401, 0x0501, 0x0601, 0x0303, 0x0203, 0x0301, 0x0201, 0x0402,
+                    0x0502, 0x0602)
+            .supportedVersions(0x0304, 0x0303, 0x0302, 0x0301)
+            .pskKeyExchangeModes(1)
+            .keyShare(0x001D, 32)
+            .padTo(512)
+            .build());
+
+    /* ----- Fields ----- */
+
+    private final Supplier<byte[]> record;
+
+    /* ----- Constructors ----- */
+
+    ClientProfile(Supplier<byte[]> record) {
+        this.record = record;
+    }
+
+    /* ----- Methods ----- */
+
+    public byte @NotNull [] record() {
+        return record.get();
+    }
+
+}
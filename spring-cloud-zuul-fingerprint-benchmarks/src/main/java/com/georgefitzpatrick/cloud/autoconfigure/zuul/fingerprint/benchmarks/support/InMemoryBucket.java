@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.benchmarks.support;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.AbstractBucket;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps standing in for Redis, so only the bucket logic itself is measured.
+ *
+ * @author George Fitzpatrick
+ */
+public final class InMemoryBucket extends AbstractBucket {
+
+    /* ----- Fields ----- */
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> bans = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Deque<Long>> logs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Double> arrivals = new ConcurrentHashMap<>();
+
+    /* ----- Methods ----- */
+
+    @Override
+    public long get(String key) {
+        AtomicLong counter = counters.get(key);
+        return counter != null ? counter.get() : 0;
+    }
+
+    @Override
+    protected long increment(String key, long value) {
+        return counters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(value);
+    }
+
+    @Override
+    protected void expire(String key, Duration duration) {
+        // expiry is not simulated
+    }
+
+    @Override
+    protected long log(String key, long now, Duration window, long used, long capacity) {
+        Deque<Long> log = logs.computeIfAbsent(key, k -> new ArrayDeque<>());
+
+        synchronized (log) {
+            while (!log.isEmpty() && log.peekFirst() < now - window.toMillis()) log.pollFirst();
+
+            long size = log.size();
+            for (long i = size; i < Math.min(size + used, capacity); i++) log.addLast(now);
+            return size;
+        }
+    }
+
+    @Override
+    protected double advance(String key, long now, double increment, double ceiling) {
+        // expiry is not simulated, so an arrival time in the past counts from now
+        return arrivals.compute(key, (k, tat) -> {
+            double from = tat != null ? Math.max(tat, now) : now;
+            return Math.min(from + increment, Math.max(ceiling, from));
+        });
+    }
+
+    @Override
+    protected boolean isBanned(String key) {
+        if (bans.isEmpty()) return false;
+
+        Long until = bans.get(key);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    @Override
+    protected void ban(String key, Duration duration) {
+        bans.put(key, System.currentTimeMillis() + duration.toMillis());
+    }
+
+}
@@ -17,25 +17,50 @@
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint;
 
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.*;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.CachingDataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBanList;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalDataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.BanReplicationListener;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.DatasetInvalidationListener;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.HybridBucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.RedisBanList;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.RedisBucket;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.RedisDataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.RedisScriptBucket;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.BannedConnectionListener;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.CloseAfterResponseListener;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus.CorpusRecorder;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter.TrustFilter;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2CConnectionFactory;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2ConnectionFactory;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics.FingerprintMetrics;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics.MicrometerFingerprintMetrics;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.CustomALPNServerConnectionFactory;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.CustomSSLContextFactory;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.HandshakeFilter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.JA3DenyList;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.JA3Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.JA4Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace.FingerprintTraceEndpoint;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace.FingerprintTracer;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Matcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
-import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
-import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.server.*;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -48,16 +73,37 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Async;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Bans;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.DatasetCache;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Hybrid;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Recorder;
 
 /**
  * @author George Fitzpatrick
  */
 @Configuration
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration"
+})
 @EnableConfigurationProperties(FingerprintProperties.class)
 @ConditionalOnProperty(prefix = FingerprintProperties.PREFIX, name = "enabled", havingValue = "true")
 public class FingerprintAutoConfiguration {
@@ -94,29 +140,231 @@ public class FingerprintAutoConfiguration {
         return String::equals;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ConnectionRegistry connectionRegistry() {
+        return new ConnectionRegistry();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FingerprintHasher fingerprintHasher(FingerprintProperties properties) {
+        return properties.getHashAlgorithm().newHasher();
+    }
+
+    @Bean
+    @ConditionalOnExpression("${" + FingerprintProperties.PREFIX + ".bans.include-origins:false} && !${"
+            + FingerprintProperties.PREFIX + ".behind-proxy:false}")
+    public BannedConnectionListener bannedConnectionListener(BanList banList) {
+        return new BannedConnectionListener(banList);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CloseAfterResponseListener closeAfterResponseListener() {
+        return new CloseAfterResponseListener();
+    }
+
+    /*
+     * Always registered, so tracing can be switched on by refreshing the configuration. The buffer is sized once.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public FingerprintTracer fingerprintTracer(FingerprintProperties properties) {
+        return new FingerprintTracer(properties::getTrace, properties.getTrace().getCapacity());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = FingerprintProperties.PREFIX + ".recorder", name = "enabled", havingValue = "true")
+    public CorpusRecorder corpusRecorder(FingerprintProperties properties) throws IOException {
+        Recorder recorder = properties.getRecorder();
+        return new CorpusRecorder(Paths.get(recorder.getFile()), recorder.getMaximumEntries(),
+                recorder.getQueueCapacity());
+    }
+
+    /*
+     * Bounded on both threads and queue, so a stalled store turns into rejected lookups rather than a growing backlog.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = FingerprintProperties.PREFIX + ".async", name = "enabled", havingValue = "true")
+    public ThreadPoolExecutor fingerprintExecutor(FingerprintProperties properties) {
+        Async async = properties.getAsync();
+        AtomicInteger count = new AtomicInteger();
+
+        return new ThreadPoolExecutor(async.getThreads(), async.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(async.getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "fingerprint-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
     @Bean
     public TrustFilter trustFilter(FingerprintProperties properties, Bucket bucket, Dataset dataset,
                                    List<Fingerprinter> fingerprinters, RouteLocator routeLocator,
-                                   KeyGenerator keyGenerator, Matcher<String> matcher) {
-        return new TrustFilter(properties, fingerprinters, matcher, routeLocator, keyGenerator, bucket, dataset);
+                                   KeyGenerator keyGenerator, Matcher<String> matcher, FingerprintHasher hasher,
+                                   ConnectionRegistry connections, BanList banList,
+                                   @Qualifier("fingerprintExecutor") ObjectProvider<Executor> executor,
+                                   ObjectProvider<FingerprintMetrics> metrics,
+                                   ObjectProvider<FingerprintTracer> tracer) {
+        TrustFilter filter = new TrustFilter(properties, fingerprinters, matcher, routeLocator, keyGenerator, bucket,
+                dataset, hasher, connections, banList, executor.getIfAvailable());
+        metrics.ifAvailable(filter::setMetrics);
+        tracer.ifAvailable(filter::setTracer);
+        return filter;
     }
 
     /* ----- Classes ----- */
 
+    @Configuration
+    @ConditionalOnClass(Endpoint.class)
+    public static class TraceEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public FingerprintTraceEndpoint fingerprintTraceEndpoint(FingerprintTracer tracer) {
+            return new FingerprintTraceEndpoint(tracer);
+        }
+
+    }
+
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnBean(MeterRegistry.class)
+    public static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public FingerprintMetrics fingerprintMetrics(MeterRegistry registry, FingerprintProperties properties) {
+            return new MicrometerFingerprintMetrics(registry, properties.getHashAlgorithm().name().toLowerCase());
+        }
+
+        @Bean
+        public MeterBinder trustFilterMetrics(TrustFilter trustFilter) {
+            return MicrometerFingerprintMetrics.asyncOutcomes(trustFilter);
+        }
+
+        // the dataset bean is declared as a Dataset, so whether it caches is only known once it exists
+        @Bean
+        public MeterBinder datasetCacheMetrics(ObjectProvider<Dataset> dataset) {
+            return registry -> {
+                Dataset instance = dataset.getIfAvailable();
+                if (instance instanceof CachingDataset) {
+                    MicrometerFingerprintMetrics.datasetCache((CachingDataset) instance).bindTo(registry);
+                }
+            };
+        }
+
+    }
+
     @Configuration
     @ConditionalOnClass(StringRedisTemplate.class)
+    @ConditionalOnBean(StringRedisTemplate.class)
     public static class RedisConfiguration {
 
         @Bean
         @ConditionalOnMissingBean
-        public Bucket redisBucket(StringRedisTemplate redis) {
-            return new RedisBucket(redis);
+        public Bucket redisBucket(StringRedisTemplate redis, FingerprintProperties properties) {
+            switch (properties.getBucketType()) {
+                case REDIS:
+                    return new RedisBucket(redis);
+                case REDIS_SCRIPT:
+                    return new RedisScriptBucket(redis);
+                case LOCAL:
+                    return new LocalBucket(properties.getLocal().getCapacity());
+                case HYBRID:
+                    Hybrid hybrid = properties.getHybrid();
+                    return new HybridBucket(new RedisScriptBucket(redis), hybrid.getFlushInterval(),
+                            hybrid.getMaximumSize());
+                default:
+                    throw new IllegalStateException("Unsupported bucket type: " + properties.getBucketType());
+            }
+        }
+
+        /*
+         * Refresh-ahead loads block on Redis, so they run on a small pool of their own, where a slow Redis only delays
+         * refreshes and a full queue skips them, rather than on the common pool.
+         */
+        @Bean(destroyMethod = "shutdown")
+        @ConditionalOnProperty(prefix = FingerprintProperties.PREFIX + ".dataset-cache", name = "enabled",
+                havingValue = "true")
+        public ThreadPoolExecutor datasetRefreshExecutor(FingerprintProperties properties) {
+            DatasetCache cache = properties.getDatasetCache();
+            AtomicInteger count = new AtomicInteger();
+
+            return new ThreadPoolExecutor(cache.getRefreshThreads(), cache.getRefreshThreads(), 0L,
+                    TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(cache.getRefreshQueueCapacity()), runnable -> {
+                        Thread thread = new Thread(runnable, "fingerprint-dataset-refresh-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public Dataset redisDataset(StringRedisTemplate redis, FingerprintProperties properties,
+                                    @Qualifier("datasetRefreshExecutor") ObjectProvider<Executor> refreshExecutor) {
+            DatasetCache cache = properties.getDatasetCache();
+            Executor executor = refreshExecutor.getIfAvailable();
+            if (!cache.isEnabled() || executor == null) return new RedisDataset(redis);
+
+            Dataset dataset = new RedisDataset(redis, cache.getChannel());
+            return new CachingDataset(dataset, cache.getMaximumSize(), cache.getTtl(), cache.getNegativeTtl(),
+                    cache.getRefreshAhead(), executor);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public BanList redisBanList(StringRedisTemplate redis, FingerprintProperties properties) {
+            Bans bans = properties.getBans();
+            return new RedisBanList(redis, new LocalBanList(bans.getMaximumSize()), bans.getChannel());
+        }
+
+        @Bean
+        public RedisMessageListenerContainer fingerprintListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                          FingerprintProperties properties,
+                                                                          Dataset dataset, BanList banList) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+
+            // a user supplied dataset or ban list has nothing to replicate
+            if (dataset instanceof CachingDataset) {
+                MessageListener listener = new DatasetInvalidationListener((CachingDataset) dataset);
+                Topic topic = new ChannelTopic(properties.getDatasetCache().getChannel());
+                container.addMessageListener(listener, topic);
+            }
+
+            if (banList instanceof RedisBanList) {
+                MessageListener listener = new BanReplicationListener(((RedisBanList) banList).getLocal());
+                Topic topic = new ChannelTopic(properties.getBans().getChannel());
+                container.addMessageListener(listener, topic);
+            }
+
+            return container;
+        }
+
+    }
+
+    @Configuration
+    @ConditionalOnMissingBean(type = "org.springframework.data.redis.core.StringRedisTemplate")
+    public static class LocalConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public Bucket localBucket(FingerprintProperties properties) {
+            return new LocalBucket(properties.getLocal().getCapacity());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public Dataset localDataset() {
+            return new LocalDataset();
         }
 
         @Bean
         @ConditionalOnMissingBean
-        public Dataset redisDataset(StringRedisTemplate redis) {
-            return new RedisDataset(redis);
+        public BanList localBanList(FingerprintProperties properties) {
+            return new LocalBanList(properties.getBans().getMaximumSize());
         }
 
     }
@@ -130,10 +378,17 @@ public class FingerprintAutoConfiguration {
             return new JA3Fingerprinter();
         }
 
+        @Bean
+        @ConditionalOnExpression("${server.ssl.enabled}")
+        @ConditionalOnProperty(prefix = FingerprintProperties.PREFIX + ".ja4", name = "enabled", havingValue = "true")
+        public Fingerprinter ja4Fingerprinter() {
+            return new JA4Fingerprinter();
+        }
+
         @Bean
         @ConditionalOnExpression("${server.http2.enabled}")
-        public Fingerprinter http2Fingerprinter() {
-            return new HTTP2Fingerprinter();
+        public Fingerprinter http2Fingerprinter(ConnectionRegistry registry) {
+            return new HTTP2Fingerprinter(registry);
         }
 
     }
@@ -145,13 +400,18 @@ public class FingerprintAutoConfiguration {
 
         @Bean
         @ConditionalOnExpression("!${server.http2.enabled}")
-        public JettyServerCustomizer serverCustomizer(@Value("${server.port}") int port) {
+        public JettyServerCustomizer serverCustomizer(@Value("${server.port}") int port, ConnectionRegistry registry,
+                                                      ObjectProvider<BannedConnectionListener> bannedConnections,
+                                                      CloseAfterResponseListener closeAfterResponse) {
             return server -> {
                 HttpConnectionFactory http = new HttpConnectionFactory();
 
                 ConnectionFactory[] connections = {http};
                 ServerConnector connector = new ServerConnector(server, connections);
                 connector.setPort(port);
+                connector.addBean(registry);
+                bannedConnections.ifAvailable(connector::addBean);
+                connector.addBean(closeAfterResponse);
 
                 Connector[] connectors = {connector};
                 server.setConnectors(connectors);
@@ -160,16 +420,24 @@ public class FingerprintAutoConfiguration {
 
         @Bean
         @ConditionalOnExpression("${server.http2.enabled}")
-        public JettyServerCustomizer http2ServerCustomizer(@Value("${server.port}") int port) {
+        public JettyServerCustomizer http2ServerCustomizer(@Value("${server.port}") int port,
+                                                           ConnectionRegistry registry,
+                                                           ObjectProvider<BannedConnectionListener> bannedConnections,
+                                                           CloseAfterResponseListener closeAfterResponse,
+                                                           ObjectProvider<CorpusRecorder> recorder) {
             return server -> {
                 HttpConfiguration httpConfig = new HttpConfiguration();
                 HttpConnectionFactory http = new HttpConnectionFactory();
 
-                HTTP2CServerConnectionFactory http2c = new HTTP2CConnectionFactory(httpConfig);
+                HTTP2CConnectionFactory http2c = new HTTP2CConnectionFactory(httpConfig, registry);
+                recorder.ifAvailable(http2c::setRecorder);
 
                 ConnectionFactory[] connections = {http2c, http};
                 ServerConnector connector = new ServerConnector(server, connections);
                 connector.setPort(port);
+                connector.addBean(registry);
+                bannedConnections.ifAvailable(connector::addBean);
+                connector.addBean(closeAfterResponse);
 
                 Connector[] connectors = {connector};
                 server.setConnectors(connectors);
@@ -183,13 +451,27 @@ public class FingerprintAutoConfiguration {
     //@ConditionalOnBean(JettyServletWebServerFactory.class)
     public static class JettySecureServerConfiguration {
 
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = FingerprintProperties.PREFIX + ".handshake", name = "enabled",
+                havingValue = "true")
+        public HandshakeFilter ja3DenyList(FingerprintProperties properties, FingerprintHasher hasher) {
+            return new JA3DenyList(hasher, properties.getHandshake().getDenyJa3());
+        }
+
         @Bean
         public SslContextFactory sslContextFactory(@Value("${server.ssl.enabled-protocols}") String[] protocols,
                                                    @Value("${server.ssl.key-store-type}") String keyStoreType,
                                                    @Value("${server.ssl.key-store}") @NotNull Resource keyStore,
                                                    @Value("${server.ssl.key-store-password}") String keyStorePassword,
-                                                   @Value("${server.ssl.key-alias}") String keyAlias) throws IOException {
-            SslContextFactory.Server factory = new CustomSSLContextFactory();
+                                                   @Value("${server.ssl.key-alias}") String keyAlias,
+                                                   ObjectProvider<HandshakeFilter> handshakeFilter,
+                                                   ObjectProvider<FingerprintMetrics> metrics,
+                                                   ObjectProvider<CorpusRecorder> recorder) throws IOException {
+            CustomSSLContextFactory factory = new CustomSSLContextFactory();
+            handshakeFilter.ifAvailable(factory::setHandshakeFilter);
+            metrics.ifAvailable(factory::setMetrics);
+            recorder.ifAvailable(factory::setRecorder);
             factory.setIncludeProtocols(protocols);
             factory.setKeyStoreType(keyStoreType);
             factory.setKeyStorePath(keyStore.getURL().toExternalForm());
@@ -215,13 +497,19 @@ public class FingerprintAutoConfiguration {
         @Bean
         @ConditionalOnExpression("!${server.http2.enabled}")
         public JettyServerCustomizer serverCustomizer(@Value("${server.port}") int port,
-                                                      SslContextFactory sslContextFactory, HttpConnectionFactory http) {
+                                                      SslContextFactory sslContextFactory, HttpConnectionFactory http,
+                                                      ConnectionRegistry registry,
+                                                      ObjectProvider<BannedConnectionListener> bannedConnections,
+                                                      CloseAfterResponseListener closeAfterResponse) {
             return server -> {
                 SslConnectionFactory ssl = new SslConnectionFactory(sslContextFactory, http.getProtocol());
 
                 ConnectionFactory[] connections = {ssl, http};
                 ServerConnector connector = new ServerConnector(server, connections);
                 connector.setPort(port);
+                connector.addBean(registry);
+                bannedConnections.ifAvailable(connector::addBean);
+                connector.addBean(closeAfterResponse);
 
                 Connector[] connectors = {connector};
                 server.setConnectors(connectors);
@@ -232,9 +520,14 @@ public class FingerprintAutoConfiguration {
         @ConditionalOnExpression("${server.http2.enabled}")
         public JettyServerCustomizer http2ServerCustomizer(@Value("${server.port}") int port,
                                                            SslContextFactory sslContextFactory,
-                                                           HttpConfiguration httpConfig, HttpConnectionFactory http) {
+                                                           HttpConfiguration httpConfig, HttpConnectionFactory http,
+                                                           ConnectionRegistry registry,
+                                                           ObjectProvider<BannedConnectionListener> bannedConnections,
+                                                           CloseAfterResponseListener closeAfterResponse,
+                                                           ObjectProvider<CorpusRecorder> recorder) {
             return server -> {
-                HTTP2ServerConnectionFactory http2 = new HTTP2ConnectionFactory(httpConfig);
+                HTTP2ConnectionFactory http2 = new HTTP2ConnectionFactory(httpConfig, registry);
+                recorder.ifAvailable(http2::setRecorder);
 
                 ALPNServerConnectionFactory alpn = new CustomALPNServerConnectionFactory(
                         http2.getProtocol(),
@@ -246,6 +539,9 @@ public class FingerprintAutoConfiguration {
                 ConnectionFactory[] connections = {ssl, alpn, http2, http};
                 ServerConnector connector = new ServerConnector(server, connections);
                 connector.setPort(port);
+                connector.addBean(registry);
+                bannedConnections.ifAvailable(connector::addBean);
+                connector.addBean(closeAfterResponse);
 
                 Connector[] connectors = {connector};
                 server.setConnectors(connectors);
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * Keys and origins under an active penalty, consulted before a request is fingerprinted or counted.
+ *
+ * @author George Fitzpatrick
+ */
+public interface BanList {
+
+    boolean isBanned(String key);
+
+    void ban(@NotNull String key, @NotNull Duration duration);
+
+    /**
+     * Origins are listed apart from the keys generated for them.
+     */
+    static @NotNull String originKey(String origin) {
+        return "[origin]:" + origin;
+    }
+
+}
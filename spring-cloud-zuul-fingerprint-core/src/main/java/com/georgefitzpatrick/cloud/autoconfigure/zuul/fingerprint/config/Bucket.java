@@ -16,6 +16,12 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config;
 
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
 
 /**
@@ -23,8 +29,73 @@ import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.
  */
 public interface Bucket {
 
+    /**
+     * Returned in place of the remaining allowance of a key that is already banned, so that it is never mistaken for
+     * an overage that has just reached a penalty.
+     */
+    long BANNED = Long.MIN_VALUE;
+
+    /**
+     * The usage of a {@link com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm#FIXED
+     * fixed window} counter. Keys of the other algorithms are only read through {@link #get(String, Policy)}.
+     */
     long get(String key);
 
+    /**
+     * The usage of a key as the policy's algorithm counts it, without consuming anything. Buckets that only count fixed
+     * windows read the counter.
+     */
+    default long get(String key, Policy policy) {
+        return get(key);
+    }
+
+    /**
+     * A key that has reached a penalty is banned for its duration, during which nothing is consumed and
+     * {@link #BANNED} is returned.
+     */
     long consume(String key, Policy policy, long used);
 
+    /**
+     * Consumes from every policy, each counting against its own {@link #policyKey(String, int) key}. Once a policy is
+     * found banned the request is refused, so the policies after it are neither counted nor evaluated and report
+     * {@code 0}; buckets that can read every ban first count nothing at all.
+     */
+    default long @NotNull [] consumeAll(String key, List<Policy> policies, long used) {
+        long[] remaining = new long[policies.size()];
+
+        int index = 0;
+        for (Policy policy : policies) {
+            remaining[index] = consume(policyKey(key, index), policy, used);
+            if (isBanned(remaining[index++])) break;
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Consumes on the executor, unless the bucket has a non-blocking client of its own.
+     */
+    default @NotNull CompletableFuture<long[]> consumeAllAsync(String key, List<Policy> policies, long used,
+                                                               @NotNull Executor executor) {
+        return CompletableFuture.supplyAsync(() -> consumeAll(key, policies, used), executor);
+    }
+
+    /**
+     * The key is hash tagged, so that all of its policies share a Redis cluster slot.
+     */
+    static @NotNull String policyKey(String key, int index) {
+        return "{" + key + "}:" + index;
+    }
+
+    /**
+     * The ban of a policy key shares its cluster slot.
+     */
+    static @NotNull String banKey(String key) {
+        return key + ":ban";
+    }
+
+    static boolean isBanned(long remaining) {
+        return remaining == BANNED;
+    }
+
 }
@@ -22,6 +22,8 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * @author George Fitzpatrick
@@ -32,6 +34,13 @@ public interface Dataset {
 
     @NotNull List<String> getAll(Collection<String> keys);
 
+    /**
+     * Looks the keys up on the executor, unless the dataset has a non-blocking client of its own.
+     */
+    default @NotNull CompletableFuture<List<String>> getAllAsync(Collection<String> keys, @NotNull Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getAll(keys), executor);
+    }
+
     void set(@NotNull String key, String value);
 
     void setAll(@NotNull Map<String, String> data);
@@ -17,6 +17,7 @@
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config;
 
 import com.netflix.zuul.context.RequestContext;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -26,4 +27,13 @@ public interface Fingerprinter {
 
     @Nullable String fingerprint(RequestContext ctx);
 
+    /**
+     * Hashes the fingerprint of a request, or returns null when it has none. By default the fingerprint string is
+     * built and hashed; fingerprinters that encode to bytes hash those directly instead.
+     */
+    default @Nullable String hash(RequestContext ctx, @NotNull FingerprintHasher hasher) {
+        String fingerprint = fingerprint(ctx);
+        return fingerprint != null ? hasher.hash(fingerprint) : null;
+    }
+
 }
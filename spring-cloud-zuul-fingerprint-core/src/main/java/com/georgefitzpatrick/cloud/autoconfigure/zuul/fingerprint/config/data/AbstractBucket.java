@@ -23,28 +23,117 @@ import java.time.Duration;
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
 
 /**
+ * Template for buckets over a key-value store. Every {@link Algorithm} is evaluated here from a handful of store
+ * operations: counters for {@link Algorithm#FIXED fixed} and {@link Algorithm#SLIDING_COUNTER sliding counter}
+ * windows, a log of hit times for {@link Algorithm#SLIDING_LOG sliding logs}, and a single theoretical arrival time for
+ * {@link Algorithm#GCRA GCRA}. The operations are not atomic with one another, so concurrent requests for a key may be
+ * counted approximately.
+ *
  * @author George Fitzpatrick
  */
 public abstract class AbstractBucket implements Bucket {
 
     @Override
     public long consume(String key, Policy policy, long used) {
-        long usage = increment(key, used);
+        // a banned key is refused before anything is counted
+        if (isBanned(key)) return Bucket.BANNED;
 
-        if (usage == 1)
-            expire(key, policy.getRefresh());
+        long usage;
+        switch (policy.getAlgorithm()) {
+            case SLIDING_LOG:
+                usage = slidingLog(key, policy, used);
+                break;
+            case SLIDING_COUNTER:
+                usage = slidingCounter(key, policy, used);
+                break;
+            case GCRA:
+                usage = gcra(key, policy, used);
+                break;
+            default:
+                usage = fixed(key, policy.getRefresh(), used);
+        }
 
         long remaining = policy.getLimit() - usage;
         long exceeded = remaining * -1;
 
-        Duration penalty = policy.getPenalty(exceeded);
-        if (penalty != null) expire(key, penalty);
+        Duration penalty = exceeded > 0 ? policy.getPenalty(exceeded) : null;
+        if (penalty != null) ban(key, penalty);
 
         return remaining;
     }
 
+    private long fixed(String key, Duration refresh, long used) {
+        long usage = increment(key, used);
+
+        if (usage == used)
+            expire(key, refresh);
+
+        return usage;
+    }
+
+    /*
+     * One counter per window, each kept until the window after it ends.
+     */
+    private long slidingCounter(String key, Policy policy, long used) {
+        long now = currentTimeMillis();
+        long refresh = Math.max(1, policy.getRefresh().toMillis());
+        long window = now / refresh;
+
+        long usage = fixed(key + ':' + window, Duration.ofMillis(refresh * 2), used);
+        long previous = get(key + ':' + (window - 1));
+        double overlap = 1 - (double) (now - window * refresh) / refresh;
+
+        return usage + (long) Math.floor(previous * overlap);
+    }
+
+    /*
+     * Hits beyond the limit and the highest penalty threshold are not logged, which bounds the log.
+     */
+    private long slidingLog(String key, Policy policy, long used) {
+        long capacity = policy.getLimit() + policy.getHighestPenaltyThreshold() + 1;
+        return log(key, currentTimeMillis(), policy.getRefresh(), used, capacity) + used;
+    }
+
+    /*
+     * Every hit, conforming or not, moves the theoretical arrival time on by one emission interval, but never past the
+     * refresh window plus enough intervals to reach the highest penalty threshold.
+     */
+    private long gcra(String key, Policy policy, long used) {
+        long now = currentTimeMillis();
+        double refresh = policy.getRefresh().toMillis();
+        double interval = refresh / policy.getLimit();
+        double ceiling = now + refresh + interval * (policy.getHighestPenaltyThreshold() + 1);
+
+        double tat = advance(key, now, interval * used, ceiling);
+        return (long) Math.ceil((tat - now) / interval);
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
     protected abstract long increment(String key, long value);
 
     protected abstract void expire(String key, Duration duration);
 
+    /**
+     * Drops the entries of a log that are older than the window, then appends one entry at the given time for each
+     * hit, up to the capacity, and expires the log once the window has passed.
+     *
+     * @return the entries left within the window, before appending.
+     */
+    protected abstract long log(String key, long now, Duration window, long used, long capacity);
+
+    /**
+     * Moves a theoretical arrival time, in milliseconds, on from the later of its current value and now by the
+     * increment, but not past the ceiling unless it is already beyond it, and expires it once it has passed.
+     *
+     * @return the new theoretical arrival time.
+     */
+    protected abstract double advance(String key, long now, double increment, double ceiling);
+
+    protected abstract boolean isBanned(String key);
+
+    protected abstract void ban(String key, Duration duration);
+
 }
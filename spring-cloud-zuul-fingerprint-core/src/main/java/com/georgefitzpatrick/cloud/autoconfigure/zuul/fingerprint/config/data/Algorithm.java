@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data;
+
+/**
+ * @author George Fitzpatrick
+ */
+public enum Algorithm {
+
+    /* ----- Enumerations ----- */
+
+    /**
+     * Counter reset when the refresh window that began with its first hit ends.
+     */
+    FIXED,
+
+    /**
+     * Timestamp of every hit within the last refresh window.
+     */
+    SLIDING_LOG,
+
+    /**
+     * Current window's counter plus the previous window's, weighted by how much of it still overlaps.
+     */
+    SLIDING_COUNTER,
+
+    /**
+     * Generic cell rate algorithm, a single theoretical arrival time per key.
+     */
+    GCRA
+
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Dataset;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, read-through near cache in front of another {@link Dataset}. Unknown keys are cached as absent for a
+ * shorter time, and entries close to expiry are reloaded in the background while the cached value is still served.
+ *
+ * @author George Fitzpatrick
+ */
+public final class CachingDataset implements Dataset {
+
+    /* ----- Fields ----- */
+
+    private final Dataset delegate;
+    private final int maximumSize;
+    private final long ttl;
+    private final long negativeTtl;
+    private final long refreshAhead;
+    private final Executor executor;
+    private final LongSupplier ticker;
+
+    private final ConcurrentMap<String, Entry> entries;
+    private final ReentrantLock evictionLock;
+    private final AtomicLong generation;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /* ----- Constructors ----- */
+
+    public CachingDataset(@NotNull Dataset delegate, int maximumSize, @NotNull Duration ttl,
+                          @NotNull Duration negativeTtl, @NotNull Duration refreshAhead, @NotNull Executor executor) {
+        this(delegate, maximumSize, ttl, negativeTtl, refreshAhead, executor, System::nanoTime);
+    }
+
+    CachingDataset(@NotNull Dataset delegate, int maximumSize, @NotNull Duration ttl, @NotNull Duration negativeTtl,
+                   @NotNull Duration refreshAhead, @NotNull Executor executor, @NotNull LongSupplier ticker) {
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive");
+
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.ttl = ttl.toNanos();
+        this.negativeTtl = negativeTtl.toNanos();
+        this.refreshAhead = refreshAhead.toNanos();
+        this.executor = executor;
+        this.ticker = ticker;
+        this.entries = new ConcurrentHashMap<>();
+        this.evictionLock = new ReentrantLock();
+        this.generation = new AtomicLong();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public @Nullable String get(String key) {
+        long now = ticker.getAsLong();
+
+        Entry entry = lookup(key, now);
+        if (entry != null) {
+            if (entry.shouldRefresh(now)) refresh(Collections.singletonList(key));
+            return entry.value;
+        }
+
+        long loadGeneration = generation.get();
+        String value = delegate.get(key);
+        store(key, value, loadGeneration);
+
+        return value;
+    }
+
+    @Override
+    public @NotNull List<String> getAll(Collection<String> keys) {
+        long now = ticker.getAsLong();
+        String[] values = new String[keys.size()];
+
+        List<String> missing = null;
+        int[] missingIndexes = null;
+        List<String> stale = null;
+
+        int i = 0;
+        for (String key : keys) {
+            Entry entry = lookup(key, now);
+            if (entry != null) {
+                values[i] = entry.value;
+                if (entry.shouldRefresh(now)) {
+                    if (stale == null) stale = new ArrayList<>();
+                    stale.add(key);
+                }
+            } else {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                    missingIndexes = new int[values.length];
+                }
+                missingIndexes[missing.size()] = i;
+                missing.add(key);
+            }
+            i++;
+        }
+
+        if (stale != null) refresh(stale);
+
+        if (missing != null) {
+            long loadGeneration = generation.get();
+            List<String> loaded = delegate.getAll(missing);
+            for (int j = 0; j < missing.size(); j++) {
+                String value = j < loaded.size() ? loaded.get(j) : null;
+                values[missingIndexes[j]] = value;
+                store(missing.get(j), value, loadGeneration);
+            }
+        }
+
+        return Arrays.asList(values);
+    }
+
+    @Override
+    public void set(@NotNull String key, String value) {
+        delegate.set(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public void setAll(@NotNull Map<String, String> data) {
+        delegate.setAll(data);
+        invalidateAll(data.keySet());
+    }
+
+    public void invalidate(@NotNull String key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void invalidateAll(@NotNull Collection<String> keys) {
+        generation.incrementAndGet();
+        for (String key : keys) entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private @Nullable Entry lookup(String key, long now) {
+        Entry entry = entries.get(key);
+
+        if (entry == null || entry.isExpired(now)) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry;
+    }
+
+    /*
+     * A write may be published while a load is in flight, in which case the loaded value is already stale and must
+     * not be cached.
+     */
+    private void store(String key, @Nullable String value, long loadGeneration) {
+        Entry entry = newEntry(value, ticker.getAsLong());
+        if (generation.get() != loadGeneration) return;
+
+        entries.put(key, entry);
+
+        // an invalidation may have landed between the check and the put
+        if (generation.get() != loadGeneration) {
+            entries.remove(key, entry);
+            return;
+        }
+
+        if (entries.size() > maximumSize) evict();
+    }
+
+    private Entry newEntry(@Nullable String value, long now) {
+        long lifetime = value != null ? ttl : negativeTtl;
+        boolean refreshable = value != null && refreshAhead > 0;
+        return new Entry(value, now + lifetime, refreshable, now + lifetime - refreshAhead);
+    }
+
+    private void refresh(List<String> keys) {
+        long refreshGeneration = generation.get();
+
+        List<String> claimed = new ArrayList<>(keys.size());
+        List<Entry> previous = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.refreshing.compareAndSet(false, true)) {
+                claimed.add(key);
+                previous.add(entry);
+            }
+        }
+
+        if (claimed.isEmpty()) return;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    List<String> loaded = delegate.getAll(claimed);
+                    long now = ticker.getAsLong();
+                    for (int i = 0; i < claimed.size(); i++) {
+                        if (generation.get() != refreshGeneration) return;
+                        String value = i < loaded.size() ? loaded.get(i) : null;
+                        entries.replace(claimed.get(i), previous.get(i), newEntry(value, now));
+                    }
+                } finally {
+                    for (Entry entry : previous) entry.refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            for (Entry entry : previous) entry.refreshing.set(false);
+        }
+    }
+
+    /*
+     * Expired entries go first; if the cache is still over its bound, entries are dropped in iteration order, which
+     * for a hash map is effectively random.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) return;
+
+        try {
+            long now = ticker.getAsLong();
+            entries.values().removeIf(entry -> entry.isExpired(now));
+
+            Iterator<String> iterator = entries.keySet().iterator();
+            while (entries.size() > maximumSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class Entry {
+
+        /* ----- Fields ----- */
+
+        private final String value;
+        private final long expiresAt;
+        private final boolean refreshable;
+        private final long refreshAt;
+        private final AtomicBoolean refreshing;
+
+        /* ----- Constructors ----- */
+
+        private Entry(@Nullable String value, long expiresAt, boolean refreshable, long refreshAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.refreshable = refreshable;
+            this.refreshAt = refreshAt;
+            this.refreshing = new AtomicBoolean();
+        }
+
+        /* ----- Methods ----- */
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        private boolean shouldRefresh(long now) {
+            return refreshable && now - refreshAt >= 0 && !refreshing.get();
+        }
+
+    }
+
+}
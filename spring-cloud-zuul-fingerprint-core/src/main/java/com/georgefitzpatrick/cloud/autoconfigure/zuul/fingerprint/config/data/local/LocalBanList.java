@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.BanList;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process ban list, holding at most a fixed number of bans.
+ *
+ * @author George Fitzpatrick
+ */
+public final class LocalBanList implements BanList {
+
+    /* ----- Fields ----- */
+
+    private final ConcurrentMap<String, Long> bans;
+    private final int maximumSize;
+    private final LongSupplier clock;
+    private final ReentrantLock evictionLock;
+
+    /* ----- Constructors ----- */
+
+    public LocalBanList(int maximumSize) {
+        this(maximumSize, System::currentTimeMillis);
+    }
+
+    LocalBanList(int maximumSize, @NotNull LongSupplier clock) {
+        this.bans = new ConcurrentHashMap<>();
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+        this.evictionLock = new ReentrantLock();
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public boolean isBanned(String key) {
+        // nothing is usually banned, which needs no hashing at all
+        if (bans.isEmpty()) return false;
+
+        Long until = bans.get(key);
+        if (until == null) return false;
+        if (until > clock.getAsLong()) return true;
+
+        bans.remove(key, until);
+        return false;
+    }
+
+    @Override
+    public void ban(@NotNull String key, @NotNull Duration duration) {
+        banUntil(key, clock.getAsLong() + duration.toMillis());
+    }
+
+    /**
+     * Bans the key until the given epoch millisecond, unless it is already banned for longer.
+     */
+    public void banUntil(@NotNull String key, long until) {
+        long now = clock.getAsLong();
+        if (until <= now) return;
+
+        bans.merge(key, until, Math::max);
+        if (bans.size() > maximumSize) evict(now);
+    }
+
+    public int size() {
+        return bans.size();
+    }
+
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) return;
+
+        try {
+            bans.values().removeIf(until -> until <= now);
+
+            Iterator<String> iterator = bans.keySet().iterator();
+            while (bans.size() > maximumSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,687 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+
+/**
+ * In-process bucket over a fixed-size, striped open-addressing table of counters keyed by a 64-bit hash of the key.
+ * Slots are claimed and updated with compare-and-set only; expired counters are released by a hashed timing wheel,
+ * and when a key's probe window is full the least recently used slot in it is reclaimed, clock style. Each slot has
+ * at most one timer on the wheel, linked through primitive arrays, so a flood of unique keys allocates nothing.
+ * <p>
+ * Counts are approximate when a slot is reclaimed while it is being updated, or when two keys share a hash.
+ *
+ * @author George Fitzpatrick
+ */
+public final class LocalBucket implements Bucket {
+
+    /* ----- Fields ----- */
+
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private static final long EMPTY = 0;
+    private static final int MAX_PROBES = 16;
+
+    // expiries are kept as 32-bit milliseconds compared with wrap-around arithmetic
+    private static final long MAX_DURATION_MILLIS = 1L << 30;
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+    private static final long MAX_COUNT = Integer.MAX_VALUE;
+    private static final int MAX_INCREMENT = 1 << 16;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long WINDOW_SALT = 0x9e3779b97f4a7c15L;
+    private static final long BAN_SALT = 0xc2b2ae3d27d4eb4fL;
+    private static final int MAX_LOG_LENGTH = 1 << 20;
+
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 512;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int slotBits;
+    private final LongSupplier clock;
+    private final long origin;
+
+    private final AtomicIntegerArray wheel;
+    private final AtomicLong processedTick;
+    private final AtomicBoolean advancing;
+
+    private final ConcurrentMap<Long, SlidingLog> logs;
+    private final int maximumLogs;
+    private final ReentrantLock logEvictionLock;
+
+    /* ----- Constructors ----- */
+
+    public LocalBucket() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LocalBucket(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors() * 2, System::currentTimeMillis);
+    }
+
+    LocalBucket(int capacity, int concurrency, @NotNull LongSupplier clock) {
+        if (capacity < MAX_PROBES) throw new IllegalArgumentException("capacity must be at least " + MAX_PROBES);
+
+        int stripeCount = ceilingPowerOfTwo(Math.max(1, Math.min(concurrency, capacity / MAX_PROBES)));
+        int stripeCapacity = ceilingPowerOfTwo(Math.max(MAX_PROBES, capacity / stripeCount));
+
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new Stripe(i, stripeCapacity);
+
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+        this.slotBits = Integer.numberOfTrailingZeros(stripeCapacity);
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        this.wheel = new AtomicIntegerArray(WHEEL_SIZE);
+        this.processedTick = new AtomicLong();
+        this.advancing = new AtomicBoolean();
+        this.logs = new ConcurrentHashMap<>();
+        this.maximumLogs = Math.max(1, capacity / MAX_PROBES);
+        this.logEvictionLock = new ReentrantLock();
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public long get(String key) {
+        long hash = hash(key);
+        Stripe stripe = stripe(hash);
+        int now = (int) elapsed();
+
+        int slot = stripe.find(hash);
+        if (slot < 0) return 0;
+
+        long state = stripe.states.get(slot);
+        return isExpired(state, now) ? 0 : count(state);
+    }
+
+    @Override
+    public long get(String key, Policy policy) {
+        long hash = hash(key);
+        long elapsed = elapsed();
+        int now = (int) elapsed;
+
+        switch (policy.getAlgorithm()) {
+            case SLIDING_LOG: {
+                SlidingLog log = logs.get(hash);
+                return log != null ? log.size(elapsed, millis(policy.getRefresh())) : 0;
+            }
+            case SLIDING_COUNTER: {
+                long refresh = Math.max(1, millis(policy.getRefresh()));
+                long window = elapsed / refresh;
+                long previous = peek(mix(hash ^ ((window - 1) * WINDOW_SALT)), now);
+                double overlap = 1 - (double) (elapsed - window * refresh) / refresh;
+                return peek(mix(hash ^ (window * WINDOW_SALT)), now) + (long) (previous * overlap);
+            }
+            case GCRA: {
+                Stripe stripe = stripe(hash);
+                int slot = stripe.find(hash);
+                if (slot < 0) return 0;
+
+                long state = stripe.states.get(slot);
+                if (count(state) == 0 || isExpired(state, now)) return 0;
+
+                long interval = Math.max(1, millis(policy.getRefresh()) * 1000 / Math.max(1, policy.getLimit()));
+                return (micros(state, now) + interval - 1) / interval;
+            }
+            default:
+                return get(key);
+        }
+    }
+
+    @Override
+    public long consume(String key, Policy policy, long used) {
+        return consume(hash(key), policy, used);
+    }
+
+    @Override
+    public long @NotNull [] consumeAll(String key, List<Policy> policies, long used) {
+        long[] remaining = new long[policies.size()];
+
+        int index = 0;
+        for (Policy policy : policies) {
+            remaining[index] = consume(hash(key, index), policy, used);
+            if (Bucket.isBanned(remaining[index++])) break;
+        }
+
+        return remaining;
+    }
+
+    private long consume(long hash, Policy policy, long used) {
+        long elapsed = elapsed();
+        int now = (int) elapsed;
+        int increment = (int) Math.min(Math.max(used, 0), MAX_INCREMENT);
+        long ban = mix(hash ^ BAN_SALT);
+
+        // a banned key is refused before anything is counted
+        if (peek(ban, now) != 0) {
+            advance(elapsed);
+            return Bucket.BANNED;
+        }
+
+        long usage;
+        switch (policy.getAlgorithm()) {
+            case SLIDING_LOG:
+                usage = slidingLog(hash, policy, increment, elapsed);
+                break;
+            case SLIDING_COUNTER:
+                usage = slidingCounter(hash, policy, increment, elapsed);
+                break;
+            case GCRA:
+                usage = gcra(hash, policy, increment, elapsed);
+                break;
+            default:
+                usage = count(hash, increment, now + (int) millis(policy.getRefresh()), elapsed);
+        }
+
+        // penalty thresholds are positive, so the lookup is only needed once the limit is passed
+        long exceeded = usage - policy.getLimit();
+        Duration penalty = exceeded > 0 ? policy.getPenalty(exceeded) : null;
+        if (penalty != null) ban(ban, now + (int) millis(penalty), elapsed);
+
+        advance(elapsed);
+        return policy.getLimit() - usage;
+    }
+
+    /*
+     * Adds to the counter of a fixed window, starting a new window that expires at the given time if the last one has
+     * ended.
+     */
+    private long count(long hash, int increment, int renewal, long elapsed) {
+        int now = (int) elapsed;
+        Stripe stripe = stripe(hash);
+
+        while (true) {
+            int slot = stripe.acquire(hash, now);
+            AtomicLongArray states = stripe.states;
+
+            // the count occupies the low bits, so a live window is a single atomic add
+            long previous = states.getAndAdd(slot, increment);
+            long usage = count(previous) + increment;
+
+            if (count(previous) == 0 || isExpired(previous, now)) {
+                usage = renew(states, slot, previous, renewal, increment);
+            } else if (usage > MAX_COUNT) {
+                usage = saturate(states, slot);
+            }
+
+            // the slot was reclaimed for another key while it was being updated
+            if (stripe.keys.get(slot) != hash) continue;
+
+            touch(stripe, slot, elapsed);
+            return usage;
+        }
+    }
+
+    /*
+     * A ban is kept in a slot of its own, which expires when the ban ends.
+     */
+    private void ban(long hash, int until, long elapsed) {
+        Stripe stripe = stripe(hash);
+
+        while (true) {
+            int slot = stripe.acquire(hash, (int) elapsed);
+            stripe.states.set(slot, pack(until, 1));
+
+            if (stripe.keys.get(slot) != hash) continue;
+
+            touch(stripe, slot, elapsed);
+            return;
+        }
+    }
+
+    private long slidingCounter(long hash, Policy policy, int increment, long elapsed) {
+        long refresh = Math.max(1, millis(policy.getRefresh()));
+        long window = elapsed / refresh;
+
+        // each window's counter lives until the window after it has ended
+        int renewal = (int) ((window + 2) * refresh);
+        long usage = count(mix(hash ^ (window * WINDOW_SALT)), increment, renewal, elapsed);
+        long previous = peek(mix(hash ^ ((window - 1) * WINDOW_SALT)), (int) elapsed);
+
+        double overlap = 1 - (double) (elapsed - window * refresh) / refresh;
+        return usage + (long) (previous * overlap);
+    }
+
+    /*
+     * The theoretical arrival time is kept in the expiry bits, with its sub-millisecond part in the count bits, so
+     * the slot expires once every emission interval has passed. Like the counters, every hit moves it on, but never
+     * by more than the refresh window plus enough intervals to reach the highest penalty.
+     */
+    private long gcra(long hash, Policy policy, int increment, long elapsed) {
+        int now = (int) elapsed;
+        long refresh = millis(policy.getRefresh()) * 1000;
+        long interval = Math.max(1, refresh / Math.max(1, policy.getLimit()));
+        long ceiling = refresh + interval * (policy.getHighestPenaltyThreshold() + 1);
+        Stripe stripe = stripe(hash);
+
+        while (true) {
+            int slot = stripe.acquire(hash, now);
+            AtomicLongArray states = stripe.states;
+
+            long previous;
+            long tat;
+            do {
+                previous = states.get(slot);
+
+                tat = count(previous) == 0 || isExpired(previous, now) ? 0 : micros(previous, now);
+                tat = Math.min(tat + interval * increment, Math.max(ceiling, tat));
+                tat = Math.min(tat, MAX_DURATION_MILLIS * 1000);
+            } while (!states.compareAndSet(slot, previous, pack(now + (int) (tat / 1000), 1 + tat % 1000)));
+
+            if (stripe.keys.get(slot) != hash) continue;
+
+            touch(stripe, slot, elapsed);
+            return (tat + interval - 1) / interval;
+        }
+    }
+
+    private long slidingLog(long hash, Policy policy, int increment, long elapsed) {
+        long refresh = millis(policy.getRefresh());
+        long capacity = Math.min(policy.getLimit() + policy.getHighestPenaltyThreshold() + 1, MAX_LOG_LENGTH);
+
+        SlidingLog log = logs.computeIfAbsent(hash, h -> new SlidingLog());
+        if (logs.size() > maximumLogs) evictLogs(elapsed);
+
+        return log.add(elapsed, refresh, increment, (int) capacity);
+    }
+
+    private long peek(long hash, int now) {
+        Stripe stripe = stripe(hash);
+
+        int slot = stripe.find(hash);
+        if (slot < 0) return 0;
+
+        long state = stripe.states.get(slot);
+        return isExpired(state, now) ? 0 : count(state);
+    }
+
+    /*
+     * A slot keeps one timer for as long as it is occupied, whichever key holds it, and the timer follows the expiry
+     * of the slot until it is released.
+     */
+    private void touch(Stripe stripe, int slot, long elapsed) {
+        if (stripe.referenced.get(slot) == 0) stripe.referenced.lazySet(slot, 1);
+        if (stripe.scheduled.get(slot) == 0) schedule(stripe, slot, elapsed);
+    }
+
+    private void evictLogs(long elapsed) {
+        if (!logEvictionLock.tryLock()) return;
+
+        try {
+            logs.values().removeIf(log -> log.isExpired(elapsed));
+
+            Iterator<Long> iterator = logs.keySet().iterator();
+            while (logs.size() > maximumLogs && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            logEvictionLock.unlock();
+        }
+    }
+
+    /*
+     * Replaces a stale window with a fresh one holding only this increment. If another thread has already renewed
+     * it, the increment that was added to the stale window is added to the new one instead.
+     */
+    private static long renew(AtomicLongArray states, int slot, long stale, int expiry, int increment) {
+        long fresh = pack(expiry, increment);
+
+        while (true) {
+            long current = states.get(slot);
+            if (expiry(current) != expiry(stale) && count(current) != 0) {
+                return count(states.addAndGet(slot, increment));
+            }
+
+            if (states.compareAndSet(slot, current, fresh)) return increment;
+        }
+    }
+
+    private static long saturate(AtomicLongArray states, int slot) {
+        long current;
+        do {
+            current = states.get(slot);
+            if (count(current) <= MAX_COUNT) return count(current);
+        } while (!states.compareAndSet(slot, current, pack(expiry(current), MAX_COUNT)));
+
+        return MAX_COUNT;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < stripe.keys.length(); i++) {
+                if (stripe.keys.get(i) != EMPTY) size++;
+            }
+        }
+
+        return size;
+    }
+
+    // the number of slots with a timer on the wheel, which is never more than the capacity
+    int timers() {
+        int timers = 0;
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < stripe.scheduled.length(); i++) timers += stripe.scheduled.get(i);
+        }
+
+        return timers;
+    }
+
+    public int capacity() {
+        return stripes.length * stripes[0].keys.length();
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+    }
+
+    private long elapsed() {
+        return clock.getAsLong() - origin;
+    }
+
+    private void schedule(Stripe stripe, int slot, long elapsed) {
+        if (stripe.scheduled.compareAndSet(slot, 0, 1))
+            push(stripe, slot, due(expiry(stripe.states.get(slot)), elapsed));
+    }
+
+    private static long due(int expiry, long elapsed) {
+        return (elapsed + (expiry - (int) elapsed)) / TICK_MILLIS;
+    }
+
+    /*
+     * Wheel buckets hold the index of their first slot across all stripes, plus one so that zero is an empty bucket.
+     */
+    private void push(Stripe stripe, int slot, long tick) {
+        int bucket = (int) (tick & (WHEEL_SIZE - 1));
+        int timer = (stripe.index << slotBits | slot) + 1;
+
+        int head;
+        do {
+            head = wheel.get(bucket);
+            stripe.next.set(slot, head);
+        } while (!wheel.compareAndSet(bucket, head, timer));
+    }
+
+    private void advance(long elapsed) {
+        long tick = elapsed / TICK_MILLIS;
+        if (tick <= processedTick.get() || !advancing.compareAndSet(false, true)) return;
+
+        try {
+            long from = processedTick.get() + 1;
+            long to = Math.min(tick, from + WHEEL_SIZE - 1);
+            for (long t = from; t <= to; t++) expire((int) (t & (WHEEL_SIZE - 1)), elapsed);
+            processedTick.set(tick);
+        } finally {
+            advancing.set(false);
+        }
+    }
+
+    private void expire(int bucket, long elapsed) {
+        int timer = wheel.getAndSet(bucket, 0);
+
+        while (timer != 0) {
+            Stripe stripe = stripes[(timer - 1) >>> slotBits];
+            int slot = (timer - 1) & stripe.mask;
+
+            // read before the slot can be pushed again
+            timer = stripe.next.get(slot);
+
+            long key = stripe.keys.get(slot);
+            long state = stripe.states.get(slot);
+            if (key != EMPTY && !isExpired(state, (int) elapsed)) {
+                // the expiry has moved on, or is due in a later revolution of the wheel
+                push(stripe, slot, due(expiry(state), elapsed));
+                continue;
+            }
+
+            if (key != EMPTY) stripe.release(slot, key);
+            stripe.scheduled.set(slot, 0);
+
+            // another key claimed the slot while it was being released
+            if (stripe.keys.get(slot) != EMPTY) schedule(stripe, slot, elapsed);
+        }
+    }
+
+    private static long hash(String key) {
+        long hash = FNV_OFFSET;
+        hash = hash(hash, key);
+        return mix(hash);
+    }
+
+    // hashes the characters of Bucket.policyKey(key, index) without building the string
+    private static long hash(String key, int index) {
+        long hash = FNV_OFFSET;
+        hash = hash(hash, '{');
+        hash = hash(hash, key);
+        hash = hash(hash, '}');
+        hash = hash(hash, ':');
+        hash = hash(hash, Integer.toString(index));
+        return mix(hash);
+    }
+
+    private static long hash(long hash, CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) hash = hash(hash, chars.charAt(i));
+        return hash;
+    }
+
+    private static long hash(long hash, char c) {
+        return (hash ^ c) * FNV_PRIME;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != EMPTY ? hash : 1;
+    }
+
+    private static long pack(int expiry, long count) {
+        return ((long) expiry << 32) | (count & COUNT_MASK);
+    }
+
+    private static int expiry(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static long count(long state) {
+        return state & COUNT_MASK;
+    }
+
+    private static boolean isExpired(long state, int now) {
+        return now - expiry(state) >= 0;
+    }
+
+    private static long micros(long state, int now) {
+        return (long) (expiry(state) - now) * 1000 + count(state) - 1;
+    }
+
+    private static long millis(Duration duration) {
+        return Math.max(0, Math.min(duration.toMillis(), MAX_DURATION_MILLIS));
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class Stripe {
+
+        /* ----- Fields ----- */
+
+        private final AtomicLongArray keys;
+        private final AtomicLongArray states;
+        private final AtomicIntegerArray referenced;
+        private final AtomicIntegerArray scheduled;
+        private final AtomicIntegerArray next;
+        private final AtomicInteger hand;
+        private final int index;
+        private final int mask;
+
+        /* ----- Constructors ----- */
+
+        private Stripe(int index, int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.states = new AtomicLongArray(capacity);
+            this.referenced = new AtomicIntegerArray(capacity);
+            this.scheduled = new AtomicIntegerArray(capacity);
+            this.next = new AtomicIntegerArray(capacity);
+            this.index = index;
+            this.hand = new AtomicInteger();
+            this.mask = capacity - 1;
+        }
+
+        /* ----- Methods ----- */
+
+        private int find(long hash) {
+            int start = (int) hash & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (start + probe) & mask;
+                if (keys.get(slot) == hash) return slot;
+            }
+
+            return -1;
+        }
+
+        private int acquire(long hash, int now) {
+            int slot = find(hash);
+            return slot >= 0 ? slot : claim(hash, now);
+        }
+
+        private int claim(long hash, int now) {
+            int start = (int) hash & mask;
+
+            while (true) {
+                int victim = -1;
+                long victimKey = EMPTY;
+
+                // an empty or expired slot is taken first
+                for (int probe = 0; probe < MAX_PROBES && victim < 0; probe++) {
+                    int slot = (start + probe) & mask;
+                    long key = keys.get(slot);
+                    if (key == hash) return slot;
+                    if (key == EMPTY || isExpired(states.get(slot), now)) {
+                        victim = slot;
+                        victimKey = key;
+                    }
+                }
+
+                // otherwise a slot not referenced since the hand last passed it
+                int offset = hand.getAndIncrement();
+                for (int probe = 0; probe < MAX_PROBES * 2 && victim < 0; probe++) {
+                    int slot = (start + ((offset + probe) & (MAX_PROBES - 1))) & mask;
+                    if (referenced.getAndSet(slot, 0) == 0) {
+                        victim = slot;
+                        victimKey = keys.get(slot);
+                    }
+                }
+
+                if (victim < 0) {
+                    victim = (start + (offset & (MAX_PROBES - 1))) & mask;
+                    victimKey = keys.get(victim);
+                }
+
+                if (keys.compareAndSet(victim, victimKey, hash)) {
+                    states.set(victim, 0);
+                    referenced.set(victim, 1);
+                    return victim;
+                }
+            }
+        }
+
+        private void release(int slot, long hash) {
+            if (keys.compareAndSet(slot, hash, EMPTY)) referenced.set(slot, 0);
+        }
+
+    }
+
+    private static final class SlidingLog {
+
+        /* ----- Fields ----- */
+
+        private long[] times;
+        private int head;
+        private int size;
+        private volatile long expiresAt;
+
+        /* ----- Constructors ----- */
+
+        private SlidingLog() {
+            this.times = new long[8];
+        }
+
+        /* ----- Methods ----- */
+
+        private synchronized long add(long now, long refresh, int increment, int capacity) {
+            while (size > 0 && times[head] < now - refresh) {
+                head = (head + 1) % times.length;
+                size--;
+            }
+
+            long usage = size + (long) increment;
+
+            // hits beyond the capacity are counted but not logged
+            int logged = Math.max(0, Math.min(increment, capacity - size));
+            if (size + logged > times.length) grow(Math.min(capacity, Math.max(size + logged, times.length * 2)));
+
+            for (int i = 0; i < logged; i++) times[(head + size++) % times.length] = now;
+
+            expiresAt = now + refresh;
+            return usage;
+        }
+
+        private synchronized long size(long now, long refresh) {
+            int live = size;
+            while (live > 0 && times[(head + size - live) % times.length] < now - refresh) live--;
+            return live;
+        }
+
+        private void grow(int length) {
+            long[] grown = new long[length];
+            for (int i = 0; i < size; i++) grown[i] = times[(head + i) % times.length];
+
+            times = grown;
+            head = 0;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Dataset;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process dataset for single node deployments without Redis.
+ *
+ * @author George Fitzpatrick
+ */
+public final class LocalDataset implements Dataset {
+
+    /* ----- Fields ----- */
+
+    private final ConcurrentMap<String, String> data;
+
+    /* ----- Constructors ----- */
+
+    public LocalDataset() {
+        this.data = new ConcurrentHashMap<>();
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public @Nullable String get(String key) {
+        return data.get(key);
+    }
+
+    @Override
+    public @NotNull List<String> getAll(Collection<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) values.add(data.get(key));
+        return values;
+    }
+
+    @Override
+    public void set(@NotNull String key, String value) {
+        if (value != null) {
+            data.put(key, value);
+        } else {
+            data.remove(key);
+        }
+    }
+
+    @Override
+    public void setAll(@NotNull Map<String, String> data) {
+        data.forEach(this::set);
+    }
+
+}
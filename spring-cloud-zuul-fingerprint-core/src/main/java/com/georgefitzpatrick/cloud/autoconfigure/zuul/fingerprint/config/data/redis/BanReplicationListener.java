@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBanList;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies the bans published by any {@link RedisBanList} on the same channel, including its own.
+ *
+ * @author George Fitzpatrick
+ */
+public final class BanReplicationListener implements MessageListener {
+
+    /* ----- Fields ----- */
+
+    private final LocalBanList banList;
+
+    /* ----- Constructors ----- */
+
+    public BanReplicationListener(@NotNull LocalBanList banList) {
+        this.banList = banList;
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public void onMessage(@NotNull Message message, byte[] pattern) {
+        String ban = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        int separator = ban.lastIndexOf(RedisBanList.SEPARATOR);
+        if (separator < 0) return;
+
+        try {
+            banList.banUntil(ban.substring(0, separator), Long.parseLong(ban.substring(separator + 1)));
+        } catch (NumberFormatException ignored) {
+            // not published by a ban list
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.CachingDataset;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Evicts the keys written by any {@link RedisDataset} publishing to the same channel.
+ *
+ * @author George Fitzpatrick
+ */
+public final class DatasetInvalidationListener implements MessageListener {
+
+    /* ----- Fields ----- */
+
+    private final CachingDataset dataset;
+
+    /* ----- Constructors ----- */
+
+    public DatasetInvalidationListener(@NotNull CachingDataset dataset) {
+        this.dataset = dataset;
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public void onMessage(@NotNull Message message, byte[] pattern) {
+        String keys = new String(message.getBody(), StandardCharsets.UTF_8);
+        dataset.invalidateAll(Arrays.asList(keys.split(RedisDataset.KEY_SEPARATOR)));
+    }
+
+}
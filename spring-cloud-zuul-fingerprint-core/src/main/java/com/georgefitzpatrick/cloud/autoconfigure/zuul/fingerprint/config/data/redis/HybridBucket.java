@@ -0,0 +1,264 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+
+/**
+ * Bucket that counts locally and reconciles with a shared bucket in batches. Each key's pending hits are flushed once
+ * they reach the policy's overshoot, or once the flush interval has passed, and the global usage is read back in the
+ * same call. Policies without overshoot, or using an algorithm other than {@link Algorithm#FIXED}, are consumed from
+ * the shared bucket directly. At most {@code maximumSize} keys are counted locally; past that, the least recently used
+ * of a small sample is flushed and forgotten. A key the shared bucket reports banned is refused locally, without being
+ * counted, until the next flush interval asks the shared bucket again.
+ *
+ * @author George Fitzpatrick
+ */
+public final class HybridBucket implements Bucket, AutoCloseable {
+
+    /* ----- Fields ----- */
+
+    private static final Logger log = LoggerFactory.getLogger(HybridBucket.class);
+
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final Bucket delegate;
+    private final long flushInterval;
+    private final int maximumSize;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Counter> counters;
+    private final ScheduledExecutorService scheduler;
+
+    /* ----- Constructors ----- */
+
+    public HybridBucket(@NotNull Bucket delegate, @NotNull Duration flushInterval, int maximumSize) {
+        this(delegate, flushInterval, maximumSize, System::currentTimeMillis,
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "hybrid-bucket-flush");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    HybridBucket(@NotNull Bucket delegate, @NotNull Duration flushInterval, int maximumSize,
+                 @NotNull LongSupplier clock, @Nullable ScheduledExecutorService scheduler) {
+        this.delegate = delegate;
+        this.flushInterval = flushInterval.toMillis();
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+        this.counters = new ConcurrentHashMap<>();
+        this.scheduler = scheduler;
+
+        if (scheduler != null) {
+            long period = Math.max(1, this.flushInterval);
+            scheduler.scheduleWithFixedDelay(this::flushAll, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public long get(String key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.usage() : delegate.get(key);
+    }
+
+    @Override
+    public long get(String key, Policy policy) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.usage() : delegate.get(key, policy);
+    }
+
+    @Override
+    public long consume(String key, Policy policy, long used) {
+        // only counters can be pre-aggregated
+        if (policy.getOvershoot() <= 0 || policy.getAlgorithm() != Algorithm.FIXED)
+            return delegate.consume(key, policy, used);
+
+        long now = clock.getAsLong();
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= maximumSize) evict();
+            counter = counters.computeIfAbsent(key, k -> new Counter(policy, now));
+        }
+        counter.policy = policy;
+        counter.accessed = now;
+
+        if (counter.banned) return consumeBanned(key, counter, policy, used, now);
+
+        long pending = counter.pending.addAndGet(used);
+        if (pending >= policy.getOvershoot() || now - counter.flushed >= flushInterval) flush(key, counter, now);
+
+        return counter.banned ? Bucket.BANNED : policy.getLimit() - counter.usage();
+    }
+
+    /*
+     * Only one caller per interval asks the shared bucket whether the ban is over; the others are refused meanwhile.
+     */
+    private long consumeBanned(String key, Counter counter, Policy policy, long used, long now) {
+        if (now - counter.flushed < flushInterval || !counter.flushing.compareAndSet(false, true))
+            return Bucket.BANNED;
+
+        try {
+            long remaining = delegate.consume(key, policy, used);
+            counter.banned = banned(policy, remaining);
+            if (!counter.banned) counter.global = policy.getLimit() - remaining;
+            counter.flushed = now;
+            return remaining;
+        } finally {
+            counter.flushing.set(false);
+        }
+    }
+
+    /*
+     * Sampling keeps eviction constant-time. Hits landing on an evicted counter between its flush and its removal are
+     * lost, which is within the overshoot the policy already allows.
+     */
+    private void evict() {
+        String victim = null;
+        Counter oldest = null;
+
+        Iterator<Map.Entry<String, Counter>> iterator = counters.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLES && iterator.hasNext(); i++) {
+            Map.Entry<String, Counter> entry = iterator.next();
+            if (oldest == null || entry.getValue().accessed < oldest.accessed) {
+                victim = entry.getKey();
+                oldest = entry.getValue();
+            }
+        }
+
+        if (oldest == null || !counters.remove(victim, oldest)) return;
+
+        try {
+            if (oldest.pending.get() != 0) flush(victim, oldest, clock.getAsLong());
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush bucket key {}", victim, e);
+        }
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * Flushes every pending count, and forgets keys that have been idle for a whole refresh window.
+     */
+    public void flushAll() {
+        long now = clock.getAsLong();
+
+        Iterator<Map.Entry<String, Counter>> iterator = counters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Counter> entry = iterator.next();
+            Counter counter = entry.getValue();
+
+            try {
+                if (counter.pending.get() != 0) {
+                    flush(entry.getKey(), counter, now);
+                } else if (now - counter.accessed >= counter.policy.getRefresh().toMillis()) {
+                    iterator.remove();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush bucket key {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private void flush(String key, Counter counter, long now) {
+        if (!counter.flushing.compareAndSet(false, true)) return;
+
+        long delta = counter.pending.getAndSet(0);
+        try {
+            Policy policy = counter.policy;
+            long remaining = delta != 0
+                    ? delegate.consume(key, policy, delta)
+                    : policy.getLimit() - delegate.get(key, policy);
+
+            // a banned key counted nothing, so its usage is left as it was
+            counter.banned = banned(policy, remaining);
+            if (!Bucket.isBanned(remaining)) counter.global = policy.getLimit() - remaining;
+            counter.flushed = now;
+        } catch (RuntimeException e) {
+            counter.pending.addAndGet(delta);
+            throw e;
+        } finally {
+            counter.flushing.set(false);
+        }
+    }
+
+    /*
+     * The shared bucket bans a key on the call that takes it past a penalty threshold, and reports it banned after.
+     */
+    private static boolean banned(Policy policy, long remaining) {
+        return Bucket.isBanned(remaining) || remaining < 0 && policy.getPenalty(-remaining) != null;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+        flushAll();
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class Counter {
+
+        /* ----- Fields ----- */
+
+        private final AtomicLong pending;
+        private final AtomicBoolean flushing;
+        private volatile Policy policy;
+        private volatile long global;
+        private volatile long flushed;
+        private volatile long accessed;
+        private volatile boolean banned;
+
+        /* ----- Constructors ----- */
+
+        private Counter(Policy policy, long now) {
+            this.pending = new AtomicLong();
+            this.flushing = new AtomicBoolean();
+            this.policy = policy;
+            this.accessed = now;
+
+            // the first hit reads the global usage rather than assuming none
+            this.flushed = Long.MIN_VALUE / 2;
+        }
+
+        /* ----- Methods ----- */
+
+        private long usage() {
+            return global + pending.get();
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.BanList;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBanList;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Checks bans locally and publishes new ones, so every gateway subscribed to the channel refuses the key too.
+ *
+ * @author George Fitzpatrick
+ */
+public final class RedisBanList implements BanList {
+
+    /* ----- Fields ----- */
+
+    static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redis;
+    private final LocalBanList local;
+    private final String channel;
+
+    /* ----- Constructors ----- */
+
+    public RedisBanList(@NotNull StringRedisTemplate redis, @NotNull LocalBanList local, @NotNull String channel) {
+        this.redis = redis;
+        this.local = local;
+        this.channel = channel;
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public boolean isBanned(String key) {
+        return local.isBanned(key);
+    }
+
+    @Override
+    public void ban(@NotNull String key, @NotNull Duration duration) {
+        long until = System.currentTimeMillis() + duration.toMillis();
+
+        local.banUntil(key, until);
+        redis.convertAndSend(channel, key + SEPARATOR + until);
+    }
+
+    public @NotNull LocalBanList getLocal() {
+        return local;
+    }
+
+}
@@ -16,12 +16,23 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.AbstractBucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.Objects;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
 
 /**
  * @author George Fitzpatrick
@@ -32,12 +43,20 @@ public final class RedisBucket extends AbstractBucket {
 
     private final StringRedisTemplate redis;
     private final ValueOperations<String, String> operations;
+    private final RedisScriptBucket script;
+    private final LongSupplier clock;
 
     /* ----- Constructors ----- */
 
     public RedisBucket(@NotNull StringRedisTemplate redis) {
+        this(redis, System::currentTimeMillis);
+    }
+
+    RedisBucket(@NotNull StringRedisTemplate redis, @NotNull LongSupplier clock) {
         this.redis = redis;
         this.operations = redis.opsForValue();
+        this.script = new RedisScriptBucket(redis, clock);
+        this.clock = clock;
     }
 
     /* ----- Methods ----- */
@@ -48,6 +67,90 @@ public final class RedisBucket extends AbstractBucket {
         return usage != null ? Long.parseLong(usage) : 0;
     }
 
+    @Override
+    public long get(String key, Policy policy) {
+        return policy.getAlgorithm() == Algorithm.FIXED ? get(key) : script.get(key, policy);
+    }
+
+    /*
+     * Bans are read first, and a request with any policy banned is refused there without counting anything. Otherwise
+     * every counter is incremented in one pipeline, and the expiries and bans that follow from the new counts are set
+     * in a last one. A request therefore costs at most three round trips however many policies there are.
+     */
+    @Override
+    public long @NotNull [] consumeAll(String key, List<Policy> policies, long used) {
+        int size = policies.size();
+        if (size == 0) return new long[0];
+
+        // only fixed windows are pipelined, the other algorithms are counted a policy at a time
+        for (Policy policy : policies) {
+            if (policy.getAlgorithm() != Algorithm.FIXED) return super.consumeAll(key, policies, used);
+        }
+
+        String[] keys = new String[size];
+        List<String> banKeys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys[i] = Bucket.policyKey(key, i);
+            banKeys.add(Bucket.banKey(keys[i]));
+        }
+
+        List<String> bans = operations.multiGet(banKeys);
+        if (bans != null && bans.stream().anyMatch(Objects::nonNull)) {
+            long[] remaining = new long[size];
+            for (int i = 0; i < size; i++) if (bans.get(i) != null) remaining[i] = Bucket.BANNED;
+            return remaining;
+        }
+
+        List<Object> counters = redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection strings = (StringRedisConnection) connection;
+            for (int i = 0; i < size; i++) {
+                strings.incrBy(keys[i], used);
+                strings.pTtl(keys[i]);
+            }
+            return null;
+        });
+
+        long[] remaining = new long[size];
+        Duration[] expiries = new Duration[size];
+        Duration[] penalties = new Duration[size];
+        boolean update = false;
+
+        int index = 0;
+        int result = 0;
+        for (Policy policy : policies) {
+            long usage = (Long) counters.get(result++);
+            long ttl = (Long) counters.get(result++);
+
+            long exceeded = usage - policy.getLimit();
+            remaining[index] = -exceeded;
+
+            // a counter left without a ttl would never reset
+            if (usage == used || ttl == -1) expiries[index] = policy.getRefresh();
+            if (exceeded > 0) penalties[index] = policy.getPenalty(exceeded);
+
+            update |= expiries[index] != null || penalties[index] != null;
+            index++;
+        }
+
+        if (update) {
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection strings = (StringRedisConnection) connection;
+                for (int i = 0; i < size; i++) {
+                    if (expiries[i] != null) strings.pExpire(keys[i], expiries[i].toMillis());
+                    if (penalties[i] != null) strings.pSetEx(banKeys.get(i), penalties[i].toMillis(), "1");
+                }
+                return null;
+            });
+        }
+
+        return remaining;
+    }
+
+    @Override
+    protected long currentTimeMillis() {
+        return clock.getAsLong();
+    }
+
     @Override
     protected long increment(String key, long value) {
         Long usage = operations.increment(key, value);
@@ -59,4 +162,53 @@ public final class RedisBucket extends AbstractBucket {
         redis.expire(key, duration);
     }
 
+    /*
+     * Entries are named as the consume script names them, so either bucket can read a log the other wrote.
+     */
+    @Override
+    protected long log(String key, long now, Duration window, long used, long capacity) {
+        long refresh = window.toMillis();
+
+        List<Object> trimmed = redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection strings = (StringRedisConnection) connection;
+            strings.zRemRangeByScore(key, Double.NEGATIVE_INFINITY, now - refresh - 1);
+            strings.zCard(key);
+            return null;
+        });
+
+        long size = (Long) trimmed.get(1);
+        long logged = Math.max(0, Math.min(used, capacity - size));
+
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection strings = (StringRedisConnection) connection;
+            for (long i = 1; i <= logged; i++) strings.zAdd(key, now, now + ":" + (size + i));
+            strings.pExpire(key, refresh);
+            return null;
+        });
+
+        return size;
+    }
+
+    @Override
+    protected double advance(String key, long now, double increment, double ceiling) {
+        String stored = operations.get(key);
+
+        double tat = Math.max(stored != null ? Double.parseDouble(stored) : now, now);
+        tat = Math.min(tat + increment, Math.max(ceiling, tat));
+
+        Duration ttl = Duration.ofMillis(Math.max(1, (long) Math.ceil(tat - now)));
+        operations.set(key, String.format(Locale.ROOT, "%.3f", tat), ttl);
+        return tat;
+    }
+
+    @Override
+    protected boolean isBanned(String key) {
+        return Boolean.TRUE.equals(redis.hasKey(Bucket.banKey(key)));
+    }
+
+    @Override
+    protected void ban(String key, Duration duration) {
+        operations.set(Bucket.banKey(key), "1", duration);
+    }
+
 }
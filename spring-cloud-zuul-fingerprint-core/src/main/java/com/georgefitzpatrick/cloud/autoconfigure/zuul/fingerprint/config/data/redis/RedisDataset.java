@@ -34,12 +34,22 @@ public final class RedisDataset implements Dataset {
 
     /* ----- Fields ----- */
 
+    public static final String KEY_SEPARATOR = "\n";
+
+    private final StringRedisTemplate redis;
     private final ValueOperations<String, String> operations;
+    private final String channel;
 
     /* ----- Constructors ----- */
 
     public RedisDataset(@NotNull StringRedisTemplate redis) {
+        this(redis, null);
+    }
+
+    public RedisDataset(@NotNull StringRedisTemplate redis, @Nullable String channel) {
+        this.redis = redis;
         this.operations = redis.opsForValue();
+        this.channel = channel;
     }
 
     /* ----- Methods ----- */
@@ -58,11 +68,17 @@ public final class RedisDataset implements Dataset {
     @Override
     public void set(@NotNull String key, String value) {
         operations.set(key, value);
+        publish(key);
     }
 
     @Override
     public void setAll(@NotNull Map<String, String> data) {
         operations.multiSet(data);
+        if (!data.isEmpty()) publish(String.join(KEY_SEPARATOR, data.keySet()));
+    }
+
+    private void publish(String keys) {
+        if (channel != null) redis.convertAndSend(channel, keys);
     }
 
 }
\ No newline at end of file
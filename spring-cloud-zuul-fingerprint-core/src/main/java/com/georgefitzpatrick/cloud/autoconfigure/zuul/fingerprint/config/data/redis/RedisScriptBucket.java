@@ -0,0 +1,225 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+
+/**
+ * Bucket that evaluates every policy of a key in one atomic script call, whatever its algorithm.
+ *
+ * @author George Fitzpatrick
+ */
+public final class RedisScriptBucket implements Bucket {
+
+    /* ----- Fields ----- */
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CONSUME_SCRIPT =
+            RedisScript.of(new ClassPathResource("consume.lua", RedisScriptBucket.class), List.class);
+
+    private static final int MAXIMUM_ARGUMENTS = 1_024;
+
+    private final StringRedisTemplate redis;
+    private final ValueOperations<String, String> operations;
+    private final LongSupplier clock;
+    private final ConcurrentMap<Policy, Arguments> arguments;
+
+    /* ----- Constructors ----- */
+
+    public RedisScriptBucket(@NotNull StringRedisTemplate redis) {
+        this(redis, System::currentTimeMillis);
+    }
+
+    RedisScriptBucket(@NotNull StringRedisTemplate redis, @NotNull LongSupplier clock) {
+        this.redis = redis;
+        this.operations = redis.opsForValue();
+        this.clock = clock;
+        this.arguments = new ConcurrentHashMap<>();
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public long get(String key) {
+        String usage = operations.get(key);
+        return usage != null ? Long.parseLong(usage) : 0;
+    }
+
+    /**
+     * Reads the usage the consume script would start from, mirroring its arithmetic for each algorithm.
+     */
+    @Override
+    public long get(String key, Policy policy) {
+        long now = clock.getAsLong();
+        long limit = policy.getLimit();
+        long refresh = Math.max(1, policy.getRefresh().toMillis());
+
+        switch (policy.getAlgorithm()) {
+            case SLIDING_LOG: {
+                Long size = redis.opsForZSet().count(key, now - refresh, Double.POSITIVE_INFINITY);
+                return size != null ? size : 0;
+            }
+            case SLIDING_COUNTER: {
+                long window = now / refresh;
+                long current = get(key + ':' + window);
+                long previous = get(key + ':' + (window - 1));
+                double overlap = 1 - (double) (now - window * refresh) / refresh;
+                return current + (long) Math.floor(previous * overlap);
+            }
+            case GCRA: {
+                String tat = operations.get(key);
+                if (tat == null) return 0;
+
+                double interval = (double) refresh / limit;
+                return (long) Math.ceil(Math.max(0, Double.parseDouble(tat) - now) / interval);
+            }
+            default:
+                return get(key);
+        }
+    }
+
+    @Override
+    public long consume(String key, Policy policy, long used) {
+        return execute(Collections.singletonList(key), Collections.singletonList(policy), used)[0];
+    }
+
+    @Override
+    public long @NotNull [] consumeAll(String key, List<Policy> policies, long used) {
+        if (policies.isEmpty()) return new long[0];
+
+        List<String> keys = new ArrayList<>(policies.size());
+        for (int i = 0; i < policies.size(); i++) keys.add(Bucket.policyKey(key, i));
+
+        return execute(keys, policies, used);
+    }
+
+    /*
+     * Every key the script touches is passed in KEYS, the ban key and any sliding window keys included, so a cluster
+     * can check they all share a slot.
+     */
+    private long[] execute(List<String> policyKeys, List<Policy> policies, long used) {
+        long now = clock.getAsLong();
+
+        List<String> keys = new ArrayList<>(policyKeys.size() * 2);
+        List<String> args = new ArrayList<>(2 + policies.size() * 4);
+        args.add(Long.toString(used));
+        args.add(Long.toString(now));
+
+        for (int index = 0; index < policies.size(); index++) {
+            Policy policy = policies.get(index);
+            String key = policyKeys.get(index);
+
+            keys.add(key);
+            keys.add(Bucket.banKey(key));
+            if (policy.getAlgorithm() == Algorithm.SLIDING_COUNTER) {
+                long window = now / Math.max(1, policy.getRefresh().toMillis());
+                keys.add(key + ':' + window);
+                keys.add(key + ':' + (window - 1));
+            }
+
+            args.addAll(Arrays.asList(arguments(policy)));
+        }
+
+        List<?> result = redis.execute(CONSUME_SCRIPT, keys, args.toArray());
+        if (result == null || result.size() != policies.size())
+            throw new IllegalStateException("Unexpected result from consume script: " + result);
+
+        long[] remaining = new long[result.size()];
+        for (int i = 0; i < remaining.length; i++) remaining[i] = ((Number) result.get(i)).longValue();
+
+        return remaining;
+    }
+
+    /*
+     * A policy's arguments only change when it is rebound, so they are built once rather than on every request.
+     * Policies a configuration refresh replaced are dropped once enough of them have piled up.
+     */
+    private String[] arguments(Policy policy) {
+        Arguments cached = arguments.get(policy);
+        if (cached != null && cached.matches(policy)) return cached.values;
+
+        if (arguments.size() >= MAXIMUM_ARGUMENTS) arguments.clear();
+
+        Arguments built = new Arguments(policy);
+        arguments.put(policy, built);
+        return built.values;
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class Arguments {
+
+        /* ----- Fields ----- */
+
+        private final Algorithm algorithm;
+        private final long limit;
+        private final Duration refresh;
+        private final Map<Long, Duration> penalties;
+        private final String[] values;
+
+        /* ----- Constructors ----- */
+
+        private Arguments(Policy policy) {
+            this.algorithm = policy.getAlgorithm();
+            this.limit = policy.getLimit();
+            this.refresh = policy.getRefresh();
+            this.penalties = policy.getPenalties();
+
+            long[] thresholds = policy.getPenaltyThresholds();
+            Duration[] durations = policy.getPenaltyDurations();
+
+            this.values = new String[4 + thresholds.length * 2];
+            values[0] = algorithm.name();
+            values[1] = Long.toString(limit);
+            values[2] = Long.toString(refresh.toMillis());
+            values[3] = Integer.toString(thresholds.length);
+
+            // in ascending order, so the script can stop at the first threshold the overage has not reached
+            for (int i = 0; i < thresholds.length; i++) {
+                values[4 + i * 2] = Long.toString(thresholds[i]);
+                values[5 + i * 2] = Long.toString(durations[i].toMillis());
+            }
+        }
+
+        /* ----- Methods ----- */
+
+        private boolean matches(Policy policy) {
+            return algorithm == policy.getAlgorithm() && limit == policy.getLimit()
+                    && refresh.equals(policy.getRefresh()) && penalties == policy.getPenalties();
+        }
+
+    }
+
+}
@@ -16,8 +16,13 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.BucketType;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBucket;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.validators.Positive;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.validators.Score;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter.FailurePolicy;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash.HashAlgorithm;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.validation.annotation.Validated;
@@ -25,7 +30,9 @@ import org.springframework.validation.annotation.Validated;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.TreeMap;
@@ -51,6 +58,48 @@ public final class FingerprintProperties {
     @NotNull
     private Boolean behindProxy = false;
 
+    @NotNull
+    private HashAlgorithm hashAlgorithm = HashAlgorithm.MD5;
+
+    @NotNull
+    private BucketType bucketType = BucketType.REDIS_SCRIPT;
+
+    @Valid
+    @NotNull
+    private Local local = new Local();
+
+    @Valid
+    @NotNull
+    private Hybrid hybrid = new Hybrid();
+
+    @Valid
+    @NotNull
+    private DatasetCache datasetCache = new DatasetCache();
+
+    @Valid
+    @NotNull
+    private Bans bans = new Bans();
+
+    @Valid
+    @NotNull
+    private Handshake handshake = new Handshake();
+
+    @Valid
+    @NotNull
+    private Async async = new Async();
+
+    @Valid
+    @NotNull
+    private Trace trace = new Trace();
+
+    @Valid
+    @NotNull
+    private Recorder recorder = new Recorder();
+
+    @Valid
+    @NotNull
+    private Ja4 ja4 = new Ja4();
+
     @NotNull
     private TreeMap<@Score Double, @Positive Long> scoreWeights = new TreeMap<>();
 
@@ -89,6 +138,94 @@ public final class FingerprintProperties {
         this.behindProxy = behindProxy;
     }
 
+    public HashAlgorithm getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    public void setHashAlgorithm(HashAlgorithm hashAlgorithm) {
+        this.hashAlgorithm = hashAlgorithm;
+    }
+
+    public BucketType getBucketType() {
+        return bucketType;
+    }
+
+    public void setBucketType(BucketType bucketType) {
+        this.bucketType = bucketType;
+    }
+
+    public Local getLocal() {
+        return local;
+    }
+
+    public void setLocal(Local local) {
+        this.local = local;
+    }
+
+    public Hybrid getHybrid() {
+        return hybrid;
+    }
+
+    public void setHybrid(Hybrid hybrid) {
+        this.hybrid = hybrid;
+    }
+
+    public DatasetCache getDatasetCache() {
+        return datasetCache;
+    }
+
+    public void setDatasetCache(DatasetCache datasetCache) {
+        this.datasetCache = datasetCache;
+    }
+
+    public Bans getBans() {
+        return bans;
+    }
+
+    public void setBans(Bans bans) {
+        this.bans = bans;
+    }
+
+    public Handshake getHandshake() {
+        return handshake;
+    }
+
+    public void setHandshake(Handshake handshake) {
+        this.handshake = handshake;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public void setAsync(Async async) {
+        this.async = async;
+    }
+
+    public Trace getTrace() {
+        return trace;
+    }
+
+    public void setTrace(Trace trace) {
+        this.trace = trace;
+    }
+
+    public Recorder getRecorder() {
+        return recorder;
+    }
+
+    public void setRecorder(Recorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public Ja4 getJa4() {
+        return ja4;
+    }
+
+    public void setJa4(Ja4 ja4) {
+        this.ja4 = ja4;
+    }
+
     public long getScoreWeight(double score) {
         Map.Entry<Double, Long> weight = getScoreWeights().ceilingEntry(score);
         return weight != null ? weight.getValue() : 1L;
@@ -112,10 +249,455 @@ public final class FingerprintProperties {
 
     /* ----- Classes ----- */
 
+    public static class Local {
+
+        /* ----- Fields ----- */
+
+        @Positive
+        private Integer capacity = LocalBucket.DEFAULT_CAPACITY;
+
+        /* ----- Constructors ----- */
+
+        public Local() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+    }
+
+    public static class Hybrid {
+
+        /* ----- Fields ----- */
+
+        @NotNull
+        private Duration flushInterval = Duration.ofMillis(100);
+
+        @Positive
+        private Integer maximumSize = 100_000;
+
+        /* ----- Constructors ----- */
+
+        public Hybrid() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+    }
+
+    public static class DatasetCache {
+
+        /* ----- Fields ----- */
+
+        @NotNull
+        private Boolean enabled = false;
+
+        @Positive
+        private Integer maximumSize = 10_000;
+
+        @NotNull
+        private Duration ttl = Duration.ofMinutes(5);
+
+        @NotNull
+        private Duration negativeTtl = Duration.ofSeconds(30);
+
+        @NotNull
+        private Duration refreshAhead = Duration.ofMinutes(1);
+
+        @NotNull
+        private String channel = PREFIX + ".dataset";
+
+        @Positive
+        private Integer refreshThreads = 2;
+
+        @Positive
+        private Integer refreshQueueCapacity = 1_000;
+
+        /* ----- Constructors ----- */
+
+        public DatasetCache() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+
+        public Duration getRefreshAhead() {
+            return refreshAhead;
+        }
+
+        public void setRefreshAhead(Duration refreshAhead) {
+            this.refreshAhead = refreshAhead;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+        public int getRefreshThreads() {
+            return refreshThreads;
+        }
+
+        public void setRefreshThreads(int refreshThreads) {
+            this.refreshThreads = refreshThreads;
+        }
+
+        public int getRefreshQueueCapacity() {
+            return refreshQueueCapacity;
+        }
+
+        public void setRefreshQueueCapacity(int refreshQueueCapacity) {
+            this.refreshQueueCapacity = refreshQueueCapacity;
+        }
+
+    }
+
+    public static class Bans {
+
+        /* ----- Fields ----- */
+
+        @Positive
+        private Integer maximumSize = 100_000;
+
+        @NotNull
+        private String channel = PREFIX + ".bans";
+
+        @NotNull
+        private Boolean includeOrigins = false;
+
+        /* ----- Constructors ----- */
+
+        public Bans() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+        public boolean isIncludeOrigins() {
+            return includeOrigins;
+        }
+
+        public void setIncludeOrigins(boolean includeOrigins) {
+            this.includeOrigins = includeOrigins;
+        }
+
+    }
+
+    public static class Handshake {
+
+        /* ----- Fields ----- */
+
+        @NotNull
+        private Boolean enabled = false;
+
+        @NotNull
+        private LinkedHashSet<@NotNull String> denyJa3 = new LinkedHashSet<>();
+
+        /* ----- Constructors ----- */
+
+        public Handshake() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public LinkedHashSet<String> getDenyJa3() {
+            return denyJa3;
+        }
+
+        public void setDenyJa3(LinkedHashSet<String> denyJa3) {
+            this.denyJa3 = denyJa3;
+        }
+
+    }
+
+    public static class Async {
+
+        /* ----- Fields ----- */
+
+        @NotNull
+        private Boolean enabled = false;
+
+        @NotNull
+        private Duration deadline = Duration.ofMillis(50);
+
+        @NotNull
+        private FailurePolicy failurePolicy = FailurePolicy.OPEN;
+
+        @Positive
+        private Integer threads = 16;
+
+        @Positive
+        private Integer queueCapacity = 1_000;
+
+        /* ----- Constructors ----- */
+
+        public Async() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getDeadline() {
+            return deadline;
+        }
+
+        public void setDeadline(Duration deadline) {
+            this.deadline = deadline;
+        }
+
+        public FailurePolicy getFailurePolicy() {
+            return failurePolicy;
+        }
+
+        public void setFailurePolicy(FailurePolicy failurePolicy) {
+            this.failurePolicy = failurePolicy;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+    }
+
+    public static class Trace {
+
+        /* ----- Fields ----- */
+
+        @NotNull
+        private Boolean enabled = false;
+
+        @Score
+        private Double sampleRate = 0.01;
+
+        @Positive
+        private Integer capacity = 1_024;
+
+        @NotNull
+        private LinkedHashSet<@NotNull String> routes = new LinkedHashSet<>();
+
+        @NotNull
+        private LinkedHashSet<@NotNull String> origins = new LinkedHashSet<>();
+
+        /* ----- Constructors ----- */
+
+        public Trace() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public LinkedHashSet<String> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(LinkedHashSet<String> routes) {
+            this.routes = routes;
+        }
+
+        public LinkedHashSet<String> getOrigins() {
+            return origins;
+        }
+
+        public void setOrigins(LinkedHashSet<String> origins) {
+            this.origins = origins;
+        }
+
+    }
+
+    public static class Recorder {
+
+        /* ----- Fields ----- */
+
+        @NotNull
+        private Boolean enabled = false;
+
+        @NotNull
+        private String file = "fingerprint-corpus.bin";
+
+        @Positive
+        private Integer maximumEntries = 100_000;
+
+        @Positive
+        private Integer queueCapacity = 1_000;
+
+        /* ----- Constructors ----- */
+
+        public Recorder() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getMaximumEntries() {
+            return maximumEntries;
+        }
+
+        public void setMaximumEntries(int maximumEntries) {
+            this.maximumEntries = maximumEntries;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+    }
+
     public static class Policy {
 
         /* ----- Fields ----- */
 
+        @NotNull
+        private Algorithm algorithm = Algorithm.FIXED;
+
         @Positive
         private Long limit;
 
@@ -125,6 +707,11 @@ public final class FingerprintProperties {
         @NotNull
         private Map<@Positive Long, @NotNull Duration> penalties = new LinkedHashMap<>();
 
+        @Positive
+        private Long overshoot = 0L;
+
+        private volatile Penalties compiled;
+
         /* ----- Constructors ----- */
 
         public Policy() {
@@ -133,6 +720,14 @@ public final class FingerprintProperties {
 
         /* ----- Methods ----- */
 
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
         public long getLimit() {
             return limit;
         }
@@ -149,8 +744,41 @@ public final class FingerprintProperties {
             this.refresh = refresh;
         }
 
+        /**
+         * The penalty of the highest threshold the overage has reached, however far past it the overage has jumped.
+         */
         public Duration getPenalty(long exceeded) {
-            return getPenalties().get(exceeded);
+            Penalties penalties = compiledPenalties();
+
+            int index = Arrays.binarySearch(penalties.thresholds, exceeded);
+            if (index < 0) index = -index - 2;
+
+            return index >= 0 ? penalties.durations[index] : null;
+        }
+
+        public long getHighestPenaltyThreshold() {
+            long[] thresholds = compiledPenalties().thresholds;
+            return thresholds.length > 0 ? thresholds[thresholds.length - 1] : 0;
+        }
+
+        /**
+         * The penalty thresholds in ascending order, matching {@link #getPenaltyDurations()}.
+         */
+        public long[] getPenaltyThresholds() {
+            return compiledPenalties().thresholds.clone();
+        }
+
+        public Duration[] getPenaltyDurations() {
+            return compiledPenalties().durations.clone();
+        }
+
+        /*
+         * Compiled on first use rather than in the setter, as the binder may fill in the map it is given.
+         */
+        private Penalties compiledPenalties() {
+            Penalties compiled = this.compiled;
+            if (compiled == null) this.compiled = compiled = new Penalties(getPenalties());
+            return compiled;
         }
 
         public Map<Long, Duration> getPenalties() {
@@ -159,6 +787,67 @@ public final class FingerprintProperties {
 
         public void setPenalties(Map<Long, Duration> penalties) {
             this.penalties = penalties;
+            this.compiled = null;
+        }
+
+        public long getOvershoot() {
+            return overshoot;
+        }
+
+        public void setOvershoot(long overshoot) {
+            this.overshoot = overshoot;
+        }
+
+        /* ----- Classes ----- */
+
+        private static final class Penalties {
+
+            /* ----- Fields ----- */
+
+            private final long[] thresholds;
+            private final Duration[] durations;
+
+            /* ----- Constructors ----- */
+
+            private Penalties(Map<Long, Duration> penalties) {
+                TreeMap<Long, Duration> sorted = new TreeMap<>(penalties);
+
+                this.thresholds = new long[sorted.size()];
+                this.durations = new Duration[sorted.size()];
+
+                int index = 0;
+                for (Map.Entry<Long, Duration> penalty : sorted.entrySet()) {
+                    thresholds[index] = penalty.getKey();
+                    durations[index] = penalty.getValue();
+                    index++;
+                }
+            }
+
+        }
+
+    }
+
+    public static class Ja4 {
+
+        /* ----- Fields ----- */
+
+        @NotNull
+        private Boolean enabled = false;
+
+        /* ----- Constructors ----- */
+
+        public Ja4() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
         }
 
     }
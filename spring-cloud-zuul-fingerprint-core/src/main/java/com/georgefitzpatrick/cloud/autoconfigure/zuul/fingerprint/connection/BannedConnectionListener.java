@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.BanList;
+import org.eclipse.jetty.io.Connection;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Closes connections from banned origins as soon as they are opened, before any bytes are read from them.
+ *
+ * @author George Fitzpatrick
+ */
+public final class BannedConnectionListener implements Connection.Listener {
+
+    /* ----- Fields ----- */
+
+    private final BanList banList;
+
+    /* ----- Constructors ----- */
+
+    public BannedConnectionListener(@NotNull BanList banList) {
+        this.banList = banList;
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public void onOpened(Connection connection) {
+        InetSocketAddress remote = connection.getEndPoint().getRemoteAddress();
+        if (remote == null || remote.getAddress() == null) return;
+
+        // the same form as HttpServletRequest.getRemoteAddr
+        String origin = remote.getAddress().getHostAddress();
+        if (banList.isBanned(BanList.originKey(origin))) connection.close();
+    }
+
+    @Override
+    public void onClosed(Connection connection) {
+
+    }
+
+}
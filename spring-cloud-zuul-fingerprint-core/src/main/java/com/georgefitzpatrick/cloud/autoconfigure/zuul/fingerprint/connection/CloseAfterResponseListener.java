@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection;
+
+import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.HTTP2Connection;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.Callback;
+import org.jetbrains.annotations.NotNull;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Closes the connection of a request marked with {@link #ATTRIBUTE} once its response is complete. An HTTP/2
+ * connection has no {@code Connection: close} header, so it is sent a GOAWAY frame, which lets its other streams
+ * finish; any other connection is closed outright.
+ *
+ * @author George Fitzpatrick
+ */
+public final class CloseAfterResponseListener implements HttpChannel.Listener {
+
+    /* ----- Fields ----- */
+
+    public static final String ATTRIBUTE = CloseAfterResponseListener.class.getName() + ".close";
+
+    /* ----- Methods ----- */
+
+    public static void mark(@NotNull HttpServletRequest req) {
+        req.setAttribute(ATTRIBUTE, Boolean.TRUE);
+    }
+
+    @Override
+    public void onComplete(Request request) {
+        if (request.getAttribute(ATTRIBUTE) == null) return;
+
+        HttpChannel channel = request.getHttpChannel();
+        if (channel != null) close(channel.getEndPoint());
+    }
+
+    private static void close(@NotNull EndPoint endPoint) {
+        Connection connection = endPoint.getConnection();
+        if (connection instanceof HTTP2Connection) {
+            ((HTTP2Connection) connection).getSession().close(ErrorCode.NO_ERROR.code, "banned", Callback.NOOP);
+        } else {
+            endPoint.close();
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection;
+
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Attributes scoped to a Jetty connection, dropped when the connection closes. HTTP/1.1 keep-alive requests and
+ * HTTP/2 streams resolve to the same end point as the connection they arrived on.
+ *
+ * @author George Fitzpatrick
+ */
+public final class ConnectionRegistry implements Connection.Listener {
+
+    /* ----- Fields ----- */
+
+    private final ConcurrentMap<EndPoint, ConcurrentMap<Object, Object>> connections;
+
+    /* ----- Constructors ----- */
+
+    public ConnectionRegistry() {
+        this.connections = new ConcurrentHashMap<>();
+    }
+
+    /* ----- Methods ----- */
+
+    public static @Nullable EndPoint endPoint(@NotNull HttpServletRequest req) {
+        Request base = Request.getBaseRequest(req);
+        if (base == null) return null;
+
+        HttpChannel channel = base.getHttpChannel();
+        return channel != null ? channel.getEndPoint() : null;
+    }
+
+    public @Nullable ConcurrentMap<Object, Object> attributes(@NotNull HttpServletRequest req) {
+        EndPoint endPoint = endPoint(req);
+        return endPoint != null ? attributes(endPoint) : null;
+    }
+
+    public @Nullable ConcurrentMap<Object, Object> attributes(@NotNull EndPoint endPoint) {
+        if (!endPoint.isOpen()) return null;
+
+        ConcurrentMap<Object, Object> attributes = connections.computeIfAbsent(endPoint, e -> new ConcurrentHashMap<>());
+
+        // the connection may have closed between the check and the insert
+        if (!endPoint.isOpen()) {
+            connections.remove(endPoint);
+            return null;
+        }
+
+        return attributes;
+    }
+
+    public int size() {
+        return connections.size();
+    }
+
+    @Override
+    public void onOpened(Connection connection) {
+
+    }
+
+    @Override
+    public void onClosed(Connection connection) {
+        connections.remove(connection.getEndPoint());
+    }
+
+}
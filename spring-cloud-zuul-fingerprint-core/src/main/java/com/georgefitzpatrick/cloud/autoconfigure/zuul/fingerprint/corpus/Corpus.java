@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2FrameRecorder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Format of a recorded corpus: a sequence of entries, each a one byte type, a four byte big-endian length and that
+ * many bytes of payload.
+ * <ul>
+ *     <li>{@link #CLIENT_HELLO} holds the body of a ClientHello handshake message, without its headers.</li>
+ *     <li>{@link #HTTP2_PREFACE} holds the SETTINGS, WINDOW_UPDATE and PRIORITY frames a connection sent before its
+ *     first HEADERS frame, as counted lists of fixed-width fields, followed by the pseudo-header order and priority of
+ *     that HEADERS frame. Entries recorded before the latter was added end after the lists.</li>
+ * </ul>
+ *
+ * @author George Fitzpatrick
+ */
+public final class Corpus {
+
+    /* ----- Fields ----- */
+
+    public static final int CLIENT_HELLO = 1;
+    public static final int HTTP2_PREFACE = 2;
+
+    /* ----- Constructors ----- */
+
+    private Corpus() {
+
+    }
+
+    /* ----- Methods ----- */
+
+    public static @NotNull List<Entry> read(@NotNull Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int type;
+            while ((type = in.read()) != -1) {
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                entries.add(new Entry(type, payload));
+            }
+        }
+
+        return entries;
+    }
+
+    static void write(@NotNull DataOutputStream out, int type, byte @NotNull [] payload) throws IOException {
+        out.writeByte(type);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    public static byte @NotNull [] encodePreface(@NotNull HTTP2FrameRecorder frames) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(frames.settingsCount());
+            for (int i = 0; i < frames.settingsCount(); i++) {
+                out.writeShort(frames.settingId(i));
+                out.writeInt(frames.settingValue(i));
+            }
+
+            out.writeShort(frames.windowUpdatesCount());
+            for (int i = 0; i < frames.windowUpdatesCount(); i++) out.writeInt(frames.windowUpdate(i));
+
+            out.writeShort(frames.prioritiesCount());
+            for (int i = 0; i < frames.prioritiesCount(); i++) {
+                out.writeInt(frames.priorityStreamId(i));
+                out.writeBoolean(frames.priorityExclusive(i));
+                out.writeInt(frames.priorityParentStreamId(i));
+                out.writeShort(frames.priorityWeight(i));
+            }
+
+            out.writeByte(frames.pseudoHeadersCount());
+            for (int i = 0; i < frames.pseudoHeadersCount(); i++) out.writeByte(frames.pseudoHeader(i));
+
+            out.writeBoolean(frames.isHeadersPrioritized());
+            if (frames.isHeadersPrioritized()) {
+                out.writeBoolean(frames.headersPriorityExclusive());
+                out.writeInt(frames.headersPriorityParentStreamId());
+                out.writeShort(frames.headersPriorityWeight());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static @NotNull HTTP2FrameRecorder decodePreface(byte @NotNull [] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            HTTP2FrameRecorder frames = new HTTP2FrameRecorder();
+
+            int settingsCount = in.readUnsignedShort();
+            for (int i = 0; i < settingsCount; i++) frames.addSetting(in.readUnsignedShort(), in.readInt());
+
+            int windowUpdatesCount = in.readUnsignedShort();
+            for (int i = 0; i < windowUpdatesCount; i++) frames.addWindowUpdate(in.readInt());
+
+            int priorityCount = in.readUnsignedShort();
+            for (int i = 0; i < priorityCount; i++)
+                frames.addPriority(in.readInt(), in.readBoolean(), in.readInt(), in.readUnsignedShort());
+
+            if (in.available() > 0) {
+                int pseudoHeadersCount = in.readUnsignedByte();
+                for (int i = 0; i < pseudoHeadersCount; i++) frames.addPseudoHeader((char) in.readUnsignedByte());
+
+                if (in.readBoolean())
+                    frames.setHeadersPriority(in.readBoolean(), in.readInt(), in.readUnsignedShort());
+            }
+
+            frames.freeze();
+            return frames;
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed HTTP/2 preface entry", e);
+        }
+    }
+
+    /* ----- Classes ----- */
+
+    public static final class Entry {
+
+        /* ----- Fields ----- */
+
+        private final int type;
+        private final byte[] payload;
+
+        /* ----- Constructors ----- */
+
+        public Entry(int type, byte @NotNull [] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        /* ----- Methods ----- */
+
+        public int type() {
+            return type;
+        }
+
+        public byte @NotNull [] payload() {
+            return payload;
+        }
+
+    }
+
+}
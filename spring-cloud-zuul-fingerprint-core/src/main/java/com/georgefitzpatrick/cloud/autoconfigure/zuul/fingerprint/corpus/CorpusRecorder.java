@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2FrameRecorder;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends live handshakes and HTTP/2 prefaces to a {@link Corpus} file, up to a maximum number of entries. Recording
+ * never fails or stalls a connection: entries are handed to a single writer thread through a bounded queue and dropped
+ * when it is full, and once the file cannot be written the recorder stops.
+ *
+ * @author George Fitzpatrick
+ */
+public final class CorpusRecorder implements Closeable {
+
+    /* ----- Fields ----- */
+
+    private static final Logger log = LoggerFactory.getLogger(CorpusRecorder.class);
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_000;
+    private static final long POLL_MILLIS = 100;
+
+    private final DataOutputStream out;
+    private final int maximumEntries;
+    private final BlockingQueue<Entry> queue;
+    private final LongAdder dropped;
+    private final Thread writer;
+
+    private volatile int entries;
+    private volatile boolean closed;
+
+    /* ----- Constructors ----- */
+
+    public CorpusRecorder(@NotNull Path file, int maximumEntries) throws IOException {
+        this(file, maximumEntries, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public CorpusRecorder(@NotNull Path file, int maximumEntries, int queueCapacity) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        this.maximumEntries = maximumEntries;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = new LongAdder();
+
+        this.writer = new Thread(this::drain, "fingerprint-corpus-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /* ----- Methods ----- */
+
+    /**
+     * @param body the ClientHello body, from position zero to the limit.
+     */
+    public void clientHello(@NotNull ByteBuffer body) {
+        if (closed) return;
+
+        ByteBuffer src = body.duplicate();
+        src.position(0);
+
+        byte[] payload = new byte[src.remaining()];
+        src.get(payload);
+
+        enqueue(Corpus.CLIENT_HELLO, payload);
+    }
+
+    public void preface(@NotNull HTTP2FrameRecorder frames) {
+        if (closed) return;
+        enqueue(Corpus.HTTP2_PREFACE, Corpus.encodePreface(frames));
+    }
+
+    /*
+     * The writer closes the recorder once full, so the handshake path checks a single volatile flag before encoding.
+     */
+    private void enqueue(int type, byte @NotNull [] payload) {
+        if (!queue.offer(new Entry(type, payload))) dropped.increment();
+    }
+
+    /*
+     * Flushes whenever the queue runs dry, so a quiet gateway leaves complete entries on disk, and only stops once
+     * closed with nothing left to write.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                Entry entry = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    if (closed) break;
+                    continue;
+                }
+
+                Corpus.write(out, entry.type, entry.payload);
+                if (++entries >= maximumEntries) break;
+                if (queue.isEmpty()) out.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Corpus recording stopped", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+            queue.clear();
+
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("Corpus recording stopped", e);
+            }
+        }
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Entries lost because the writer had fallen a full queue behind.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting entries and waits for those already queued to be written.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class Entry {
+
+        /* ----- Fields ----- */
+
+        private final int type;
+        private final byte[] payload;
+
+        /* ----- Constructors ----- */
+
+        private Entry(int type, byte @NotNull [] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+    }
+
+}
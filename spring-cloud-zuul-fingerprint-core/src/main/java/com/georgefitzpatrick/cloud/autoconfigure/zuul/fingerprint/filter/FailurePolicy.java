@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter;
+
+/**
+ * What the filter does with a request when the dataset or bucket cannot answer within the deadline.
+ *
+ * @author George Fitzpatrick
+ */
+public enum FailurePolicy {
+
+    /* ----- Enumerations ----- */
+
+    /**
+     * Let the request through uncounted.
+     */
+    OPEN,
+
+    /**
+     * Refuse the request as unavailable.
+     */
+    CLOSED
+
+}
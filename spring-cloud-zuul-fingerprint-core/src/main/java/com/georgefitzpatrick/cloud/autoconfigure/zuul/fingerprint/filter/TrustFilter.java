@@ -16,12 +16,18 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.BanList;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Fingerprinter;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.KeyGenerator;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Dataset;
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.CloseAfterResponseListener;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics.FingerprintMetrics;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace.FingerprintTracer;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace.TraceRecord;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Matcher;
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.context.RequestContext;
@@ -35,17 +41,19 @@ import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
 import org.springframework.http.HttpStatus;
 
 import javax.servlet.http.HttpServletRequest;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Collection;
-import java.util.LinkedList;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
 import static com.netflix.zuul.util.HTTPRequestUtils.X_FORWARDED_FOR_HEADER;
 import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PRE_TYPE;
+import static org.springframework.http.HttpHeaders.CONNECTION;
 import static org.springframework.http.HttpHeaders.USER_AGENT;
-import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 
 /**
  * @author George Fitzpatrick
@@ -67,11 +75,35 @@ public final class TrustFilter extends ZuulFilter {
     private final KeyGenerator keyGenerator;
     private final Bucket bucket;
     private final Dataset dataset;
+    private final FingerprintHasher hasher;
+    private final ConnectionRegistry connections;
+    private final BanList banList;
+    private final Executor executor;
+
+    private final LongAdder timeouts;
+    private final LongAdder errors;
+    private final LongAdder fallbacks;
+
+    private volatile FingerprintMetrics metrics = FingerprintMetrics.NOOP;
+    private volatile FingerprintTracer tracer;
 
     /* ----- Constructors ----- */
 
     public TrustFilter(FingerprintProperties properties, List<Fingerprinter> fingerprinters, Matcher<String> matcher,
-                       RouteLocator routeLocator, KeyGenerator keyGenerator, Bucket bucket, Dataset dataset) {
+                       RouteLocator routeLocator, KeyGenerator keyGenerator, Bucket bucket, Dataset dataset,
+                       FingerprintHasher hasher, ConnectionRegistry connections, BanList banList) {
+        this(properties, fingerprinters, matcher, routeLocator, keyGenerator, bucket, dataset, hasher, connections,
+                banList, null);
+    }
+
+    /**
+     * With an executor, the dataset and bucket are called off the request thread, which waits for them no longer than
+     * the configured deadline.
+     */
+    public TrustFilter(FingerprintProperties properties, List<Fingerprinter> fingerprinters, Matcher<String> matcher,
+                       RouteLocator routeLocator, KeyGenerator keyGenerator, Bucket bucket, Dataset dataset,
+                       FingerprintHasher hasher, ConnectionRegistry connections, BanList banList,
+                       @Nullable Executor executor) {
         this.properties = properties;
         this.fingerprinters = fingerprinters;
         this.matcher = matcher;
@@ -79,6 +111,13 @@ public final class TrustFilter extends ZuulFilter {
         this.keyGenerator = keyGenerator;
         this.bucket = bucket;
         this.dataset = dataset;
+        this.hasher = hasher;
+        this.connections = connections;
+        this.banList = banList;
+        this.executor = executor;
+        this.timeouts = new LongAdder();
+        this.errors = new LongAdder();
+        this.fallbacks = new LongAdder();
     }
 
     /* ----- Methods ----- */
@@ -95,7 +134,8 @@ public final class TrustFilter extends ZuulFilter {
 
     @Override
     public boolean shouldFilter() {
-        return true;
+        // without policies there is nothing to enforce
+        return !properties.getPolicies().isEmpty();
     }
 
     @Override
@@ -109,12 +149,143 @@ public final class TrustFilter extends ZuulFilter {
         boolean behindProxy = properties.isBehindProxy();
         String origin = clientIp(req, behindProxy);
 
+        String key = keyGenerator.generate(req, route, origin);
+        log.debug("key: {}", key);
+
+        FingerprintTracer tracer = this.tracer;
+        TraceRecord trace = tracer != null ? tracer.sample(route != null ? route.getId() : null, origin, key) : null;
+
+        // banned clients are refused before anything is fingerprinted, looked up or counted
+        boolean includeOrigins = properties.getBans().isIncludeOrigins();
+        boolean originBanned = includeOrigins && banList.isBanned(BanList.originKey(origin));
+        if (originBanned || banList.isBanned(key)) {
+            reject(ctx, originBanned && !behindProxy);
+            metrics.rejected("banned");
+            emit(tracer, trace, "banned");
+            return null;
+        }
+
         String identity = req.getHeader(USER_AGENT);
-        List<String> fingerprints = fingerprint(fingerprinters, ctx);
-        List<String> hashes = md5(fingerprints);
-        List<String> values = dataset.getAll(hashes);
+        Map<Object, Object> connection = connections.attributes(req);
+        Fingerprints fingerprints = fingerprint(ctx, connection, trace);
+
+        long[] remaining = executor != null
+                ? consumeAsync(key, identity, fingerprints)
+                : consume(key, identity, fingerprints);
+
+        if (remaining == null) {
+            fallback(ctx);
+            emit(tracer, trace, "fallback");
+            return null;
+        }
+
+        boolean exceeded = false;
+        Duration penalty = null;
 
-        int unavailableFingerprints = fingerprinters.size() - fingerprints.size();
+        int index = 0;
+        for (Policy policy : properties.getPolicies()) {
+            long allowance = remaining[index++];
+            if (allowance >= 0) continue;
+
+            exceeded = true;
+            metrics.rejected(index - 1);
+
+            // a key the bucket already holds banned is not banned again, which would extend its penalty, and only the
+            // request that reached a penalty lists it, so later requests stop before the bucket
+            if (!Bucket.isBanned(allowance)) {
+                Duration candidate = policy.getPenalty(-allowance);
+                if (candidate != null && !candidate.equals(policy.getPenalty(-allowance - fingerprints.weight)))
+                    penalty = candidate;
+            }
+
+            // the first rejection decides the response; the bucket keeps the bans of any other policy itself
+            break;
+        }
+
+        if (penalty != null) {
+            banList.ban(key, penalty);
+            if (includeOrigins) banList.ban(BanList.originKey(origin), penalty);
+        }
+
+        if (exceeded) reject(ctx, penalty != null && includeOrigins && !behindProxy);
+        emit(tracer, trace, exceeded ? "rejected" : "allowed");
+
+        return null;
+    }
+
+    private static void emit(@Nullable FingerprintTracer tracer, @Nullable TraceRecord trace, @NotNull String outcome) {
+        if (trace == null) return;
+
+        trace.outcome(outcome);
+        tracer.emit(trace);
+    }
+
+    private long @NotNull [] consume(String key, @Nullable String identity, @NotNull Fingerprints fingerprints) {
+        List<String> values = fingerprints.values;
+        if (!fingerprints.hashes.isEmpty()) {
+            long start = System.nanoTime();
+            values = fingerprints.complete(lookedUp(start, dataset.getAll(fingerprints.hashes)));
+        }
+
+        long weight = weight(identity, values, fingerprints);
+
+        long start = System.nanoTime();
+        long[] remaining = bucket.consumeAll(key, properties.getPolicies(), weight);
+        metrics.consumed(System.nanoTime() - start);
+
+        return remaining;
+    }
+
+    /*
+     * The request thread waits no longer than the deadline. Whatever is still in flight by then completes in the
+     * background, but is not applied to the request.
+     */
+    private long @Nullable [] consumeAsync(String key, @Nullable String identity, @NotNull Fingerprints fingerprints) {
+        List<Policy> policies = properties.getPolicies();
+        Duration deadline = properties.getAsync().getDeadline();
+
+        CompletableFuture<long[]> remaining = null;
+        try {
+            long lookup = System.nanoTime();
+            CompletableFuture<List<String>> values = fingerprints.hashes.isEmpty()
+                    ? CompletableFuture.completedFuture(fingerprints.values)
+                    : dataset.getAllAsync(fingerprints.hashes, executor)
+                            .thenApply(resolved -> fingerprints.complete(lookedUp(lookup, resolved)));
+
+            remaining = values.thenCompose(v -> {
+                long weight = weight(identity, v, fingerprints);
+                long start = System.nanoTime();
+                return bucket.consumeAllAsync(key, policies, weight, executor)
+                        .whenComplete((r, e) -> metrics.consumed(System.nanoTime() - start));
+            });
+            return remaining.get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            remaining.cancel(false);
+        } catch (ExecutionException | RejectedExecutionException e) {
+            errors.increment();
+            log.debug("lookup failed: {}", key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return null;
+    }
+
+    private @NotNull List<String> lookedUp(long start, @NotNull List<String> resolved) {
+        long nanos = System.nanoTime() - start;
+
+        int hits = 0;
+        for (String value : resolved) {
+            if (value != null) hits++;
+        }
+
+        metrics.lookedUp(nanos, hits, resolved.size() - hits);
+        return resolved;
+    }
+
+    private long weight(@Nullable String identity, @NotNull List<String> values, @NotNull Fingerprints fingerprints) {
+        int unavailableFingerprints = fingerprinters.size() - values.size();
         double availableScore = fingerprinters.size() * GOOD_SCORE;
 
         double achievedScore = unavailableFingerprints * UNCERTAIN_SCORE;
@@ -130,46 +301,122 @@ public final class TrustFilter extends ZuulFilter {
 
         double score = achievedScore / availableScore;
         log.debug("score: {}", score);
+        metrics.scored(score);
+        if (fingerprints.trace != null) fingerprints.trace.score(score);
 
-        String key = keyGenerator.generate(req, route, origin);
-        log.debug("key: {}", key);
+        fingerprints.weight = properties.getScoreWeight(score);
+        return fingerprints.weight;
+    }
 
-        for (Policy policy : properties.getPolicies()) {
-            long factor = properties.getScoreWeight(score);
-            long remaining = bucket.consume(key, policy, factor);
-            if (remaining < 0) {
-                ctx.setResponseStatusCode(HttpStatus.TOO_MANY_REQUESTS.value());
-                ctx.setSendZuulResponse(false);
-            }
-        }
+    private void fallback(@NotNull RequestContext ctx) {
+        fallbacks.increment();
+        if (properties.getAsync().getFailurePolicy() == FailurePolicy.OPEN) return;
 
-        return null;
+        metrics.rejected("fallback");
+        ctx.setResponseStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+        ctx.setSendZuulResponse(false);
     }
 
-    private @NotNull List<String> fingerprint(@NotNull List<Fingerprinter> fingerprinters, RequestContext ctx) {
-        List<String> fingerprints = new LinkedList<>();
+    public @NotNull FingerprintMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(@NotNull FingerprintMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public @Nullable FingerprintTracer getTracer() {
+        return tracer;
+    }
+
+    public void setTracer(@Nullable FingerprintTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /*
+     * A connection from a banned origin is closed after the response, as every request on it would be refused. The
+     * header covers HTTP/1.1, while an HTTP/2 connection, which drops it, is sent a GOAWAY frame instead.
+     */
+    private static void reject(@NotNull RequestContext ctx, boolean close) {
+        ctx.setResponseStatusCode(HttpStatus.TOO_MANY_REQUESTS.value());
+        ctx.setSendZuulResponse(false);
+        if (!close) return;
+
+        HttpServletResponse res = ctx.getResponse();
+        if (res != null) res.setHeader(CONNECTION, "close");
+
+        HttpServletRequest req = ctx.getRequest();
+        if (req != null && req.getProtocol() != null && req.getProtocol().startsWith("HTTP/2"))
+            CloseAfterResponseListener.mark(req);
+    }
+
+    /*
+     * Fingerprints are properties of the connection, so once hashed and looked up they are kept on it and reused by
+     * later keep-alive requests and HTTP/2 streams without touching the dataset.
+     */
+    private @NotNull Fingerprints fingerprint(@NotNull RequestContext ctx, @Nullable Map<Object, Object> connection,
+                                              @Nullable TraceRecord trace) {
+        Fingerprints fingerprints = new Fingerprints(fingerprinters.size(), connection, trace);
 
         for (Fingerprinter fingerprinter : fingerprinters) {
+            ResolvedFingerprint resolved = connection != null
+                    ? (ResolvedFingerprint) connection.get(fingerprinter)
+                    : null;
+            if (resolved != null) {
+                fingerprints.values.add(resolved.value);
+                if (trace != null) trace.fingerprint(fingerprinter.getClass().getSimpleName(), null, resolved.hash);
+                continue;
+            }
+
             String name = fingerprinter.getClass().getSimpleName();
+
+            long start = System.nanoTime();
+
+            // with nothing to show the fingerprint to, it is hashed without being built as a string
+            if (trace == null && !log.isDebugEnabled()) {
+                String hash = fingerprinter.hash(ctx, hasher);
+                metrics.fingerprinted(name, System.nanoTime() - start, hash != null);
+
+                if (hash == null) continue;
+
+                fingerprints.pending.add(fingerprinter);
+                fingerprints.hashes.add(hash);
+                continue;
+            }
+
             String fingerprint = fingerprinter.fingerprint(ctx);
+            metrics.fingerprinted(name, System.nanoTime() - start, fingerprint != null);
 
             log.debug("{}: {}", name, fingerprint);
 
-            if (fingerprint != null) fingerprints.add(fingerprint);
-        }
+            if (fingerprint == null) {
+                if (trace != null) trace.fingerprint(name, null, null);
+                continue;
+            }
 
-        return fingerprints;
-    }
+            start = System.nanoTime();
+            String hash = hasher.hash(fingerprint);
+            metrics.hashed(System.nanoTime() - start);
 
-    private @NotNull List<String> md5(@NotNull Collection<String> c) throws ZuulException {
-        List<String> hashes = new LinkedList<>();
+            if (trace != null) trace.fingerprint(name, fingerprint, hash);
 
-        for (String str : c) {
-            String hash = md5(str);
-            hashes.add(hash);
+            fingerprints.pending.add(fingerprinter);
+            fingerprints.hashes.add(hash);
         }
 
-        return hashes;
+        return fingerprints;
     }
 
     private String clientIp(@NotNull HttpServletRequest req, boolean behindProxy) {
@@ -182,18 +429,60 @@ public final class TrustFilter extends ZuulFilter {
         return req.getRemoteAddr();
     }
 
-    private @NotNull String md5(String str) throws ZuulException {
-        MessageDigest message;
-        try {
-            message = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new ZuulException(e, INTERNAL_SERVER_ERROR.value(), "");
+    /* ----- Classes ----- */
+
+    private static final class Fingerprints {
+
+        /* ----- Fields ----- */
+
+        private final List<String> values;
+        private final List<Fingerprinter> pending;
+        private final List<String> hashes;
+        private final Map<Object, Object> connection;
+        private final TraceRecord trace;
+
+        // read by the request thread once the bucket has been consumed
+        private volatile long weight;
+
+        /* ----- Constructors ----- */
+
+        private Fingerprints(int size, @Nullable Map<Object, Object> connection, @Nullable TraceRecord trace) {
+            this.values = new ArrayList<>(size);
+            this.pending = new ArrayList<>(size);
+            this.hashes = new ArrayList<>(size);
+            this.connection = connection;
+            this.trace = trace;
         }
 
-        message.update(str.getBytes());
-        byte[] digest = message.digest();
+        /* ----- Methods ----- */
+
+        private @NotNull List<String> complete(@NotNull List<String> resolvedValues) {
+            for (int i = 0; i < hashes.size(); i++) {
+                String value = resolvedValues.get(i);
+                values.add(value);
+
+                if (connection != null) connection.put(pending.get(i), new ResolvedFingerprint(hashes.get(i), value));
+            }
+
+            return values;
+        }
+
+    }
+
+    private static final class ResolvedFingerprint {
+
+        /* ----- Fields ----- */
+
+        private final String hash;
+        private final String value;
+
+        /* ----- Constructors ----- */
+
+        private ResolvedFingerprint(String hash, @Nullable String value) {
+            this.hash = hash;
+            this.value = value;
+        }
 
-        return Bytes.toHexString(digest);
     }
 
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes into per-thread buffers and hex encodes the digest without intermediate strings.
+ *
+ * @author George Fitzpatrick
+ */
+public abstract class AbstractFingerprintHasher implements FingerprintHasher {
+
+    /* ----- Fields ----- */
+
+    private static final int DEFAULT_INPUT_CAPACITY = 512;
+    private static final int ASCII_LIMIT = 0x80;
+
+    private final ThreadLocal<Buffers> buffers;
+    private final int digestLength;
+
+    /* ----- Constructors ----- */
+
+    protected AbstractFingerprintHasher(int digestLength) {
+        this.digestLength = digestLength;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(digestLength));
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public @NotNull String hash(@NotNull CharSequence value) {
+        Buffers buffers = this.buffers.get();
+
+        int length = value.length();
+        byte[] input = buffers.input(length);
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+
+            // fingerprints are ascii, anything else is hashed over its utf-8 encoding
+            if (c >= ASCII_LIMIT) {
+                byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                return hash(bytes, 0, bytes.length);
+            }
+
+            input[i] = (byte) c;
+        }
+
+        return hash(input, 0, length);
+    }
+
+    @Override
+    public @NotNull String hash(byte @NotNull [] src, int offset, int length) {
+        Buffers buffers = this.buffers.get();
+
+        digest(src, offset, length, buffers.digest);
+        int end = Bytes.toHexChars(buffers.digest, 0, digestLength, buffers.hex, 0);
+
+        return new String(buffers.hex, 0, end);
+    }
+
+    protected abstract void digest(byte @NotNull [] src, int offset, int length, byte @NotNull [] dst);
+
+    /* ----- Classes ----- */
+
+    private static final class Buffers {
+
+        /* ----- Fields ----- */
+
+        private final byte[] digest;
+        private final char[] hex;
+        private byte[] input;
+
+        /* ----- Constructors ----- */
+
+        private Buffers(int digestLength) {
+            this.digest = new byte[digestLength];
+            this.hex = new char[digestLength * 2];
+            this.input = new byte[DEFAULT_INPUT_CAPACITY];
+        }
+
+        /* ----- Methods ----- */
+
+        private byte @NotNull [] input(int length) {
+            if (input.length < length) input = Arrays.copyOf(input, Math.max(length, input.length * 2));
+            return input;
+        }
+
+    }
+
+}
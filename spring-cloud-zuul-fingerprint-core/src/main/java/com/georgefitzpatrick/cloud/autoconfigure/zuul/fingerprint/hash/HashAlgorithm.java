@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * @author George Fitzpatrick
+ */
+public enum HashAlgorithm {
+
+    /* ----- Enumerations ----- */
+
+    MD5(MD5FingerprintHasher::new),
+    MURMUR3_128(Murmur3FingerprintHasher::new);
+
+    /* ----- Fields ----- */
+
+    private final Supplier<FingerprintHasher> factory;
+
+    /* ----- Constructors ----- */
+
+    HashAlgorithm(Supplier<FingerprintHasher> factory) {
+        this.factory = factory;
+    }
+
+    /* ----- Methods ----- */
+
+    public @NotNull FingerprintHasher newHasher() {
+        return factory.get();
+    }
+
+}
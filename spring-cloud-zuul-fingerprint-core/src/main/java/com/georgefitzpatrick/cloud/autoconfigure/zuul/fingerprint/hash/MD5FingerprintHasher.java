@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * MD5 over a per-thread {@link MessageDigest}, producing the uppercase hex digests JA3 datasets are keyed by.
+ *
+ * @author George Fitzpatrick
+ */
+public final class MD5FingerprintHasher extends AbstractFingerprintHasher {
+
+    /* ----- Fields ----- */
+
+    private static final String ALGORITHM = "MD5";
+    private static final int DIGEST_LENGTH = 16;
+
+    private final ThreadLocal<MessageDigest> digests;
+
+    /* ----- Constructors ----- */
+
+    public MD5FingerprintHasher() {
+        super(DIGEST_LENGTH);
+
+        // fail on construction rather than on the first request
+        newDigest();
+        this.digests = ThreadLocal.withInitial(MD5FingerprintHasher::newDigest);
+    }
+
+    /* ----- Methods ----- */
+
+    private static @NotNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected void digest(byte @NotNull [] src, int offset, int length, byte @NotNull [] dst) {
+        MessageDigest digest = digests.get();
+        digest.update(src, offset, length);
+
+        try {
+            digest.digest(dst, 0, DIGEST_LENGTH);
+        } catch (DigestException e) {
+            digest.reset();
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
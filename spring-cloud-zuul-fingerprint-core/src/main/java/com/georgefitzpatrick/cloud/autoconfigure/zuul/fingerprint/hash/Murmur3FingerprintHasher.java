@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Non-cryptographic MurmurHash3 x64 128-bit, for deployments whose datasets are keyed internally.
+ *
+ * @author George Fitzpatrick
+ */
+public final class Murmur3FingerprintHasher extends AbstractFingerprintHasher {
+
+    /* ----- Fields ----- */
+
+    private static final int DIGEST_LENGTH = 16;
+    private static final int BLOCK_LENGTH = 16;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long seed;
+
+    /* ----- Constructors ----- */
+
+    public Murmur3FingerprintHasher() {
+        this(0);
+    }
+
+    public Murmur3FingerprintHasher(long seed) {
+        super(DIGEST_LENGTH);
+        this.seed = seed;
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    protected void digest(byte @NotNull [] src, int offset, int length, byte @NotNull [] dst) {
+        long h1 = seed;
+        long h2 = seed;
+
+        int blocks = length / BLOCK_LENGTH;
+        for (int i = 0; i < blocks; i++) {
+            int block = offset + i * BLOCK_LENGTH;
+            long k1 = getLong(src, block);
+            long k2 = getLong(src, block + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = offset + blocks * BLOCK_LENGTH;
+        int remaining = length - blocks * BLOCK_LENGTH;
+        long k1 = 0;
+        long k2 = 0;
+
+        for (int i = remaining - 1; i >= 8; i--) k2 ^= (src[tail + i] & 0xFFL) << ((i - 8) * 8);
+        for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) k1 ^= (src[tail + i] & 0xFFL) << (i * 8);
+
+        if (remaining > 8) h2 ^= mixK2(k2);
+        if (remaining > 0) h1 ^= mixK1(k1);
+
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        putLong(dst, 0, h1);
+        putLong(dst, 8, h2);
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLong(byte @NotNull [] src, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) value = (value << 8) | (src[offset + i] & 0xFFL);
+        return value;
+    }
+
+    private static void putLong(byte @NotNull [] dst, int offset, long value) {
+        for (int i = 0; i < 8; i++) dst[offset + i] = (byte) (value >>> (i * 8));
+    }
+
+}
@@ -16,29 +16,49 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus.CorpusRecorder;
 import org.eclipse.jetty.http2.parser.RateControl;
 import org.eclipse.jetty.http2.parser.ServerParser;
 import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.HttpConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author George Fitzpatrick
  */
 public final class HTTP2ConnectionFactory extends HTTP2ServerConnectionFactory {
 
+    /* ----- Fields ----- */
+
+    private final ConnectionRegistry registry;
+
+    private volatile CorpusRecorder recorder;
+
     /* ----- Constructors ----- */
 
-    public HTTP2ConnectionFactory(HttpConfiguration httpConfiguration) {
+    public HTTP2ConnectionFactory(HttpConfiguration httpConfiguration, @NotNull ConnectionRegistry registry) {
         super(httpConfiguration);
+        this.registry = registry;
     }
 
     /* ----- Methods ----- */
 
+    public @Nullable CorpusRecorder getRecorder() {
+        return recorder;
+    }
+
+    public void setRecorder(@Nullable CorpusRecorder recorder) {
+        this.recorder = recorder;
+    }
+
     @Override
     protected ServerParser newServerParser(Connector connector, ServerParser.Listener delegate, RateControl rateControl) {
-        HTTP2ServerParserListener listener = new HTTP2ServerParserListener(delegate);
-        return super.newServerParser(connector, listener, rateControl);
+        HTTP2ServerParserListener listener = new HTTP2ServerParserListener(delegate, registry, recorder);
+        return new HTTP2ServerParser(connector.getByteBufferPool(), listener, getMaxDynamicTableSize(),
+                getHttpConfiguration().getRequestHeaderSize(), rateControl);
     }
 
 }
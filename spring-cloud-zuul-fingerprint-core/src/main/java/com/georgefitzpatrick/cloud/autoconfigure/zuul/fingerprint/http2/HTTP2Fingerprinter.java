@@ -16,65 +16,103 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.FingerprintEncoder;
 import com.netflix.zuul.context.RequestContext;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
-import java.util.StringJoiner;
+import java.util.Map;
 
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.HTTP2_SESSION_ATTRIBUTE;
-import static java.lang.String.format;
 import static org.eclipse.jetty.http.HttpVersion.HTTP_2;
 
+/**
+ * Fingerprints the preface of an HTTP/2 connection, read from the attributes the parser listener published on the
+ * connection, so every stream of the connection resolves to the same frames without an HTTP session. The fingerprint
+ * takes the four-part form {@code settings|window updates|priorities|pseudo-header order} popularised by Akamai.
+ *
+ * @author George Fitzpatrick
+ */
 public final class HTTP2Fingerprinter implements Fingerprinter {
 
-    /* ----- Constructors ----- */
+    /* ----- Fields ----- */
 
-    public HTTP2Fingerprinter() {
+    private final ConnectionRegistry registry;
+
+    /* ----- Constructors ----- */
 
+    public HTTP2Fingerprinter(@NotNull ConnectionRegistry registry) {
+        this.registry = registry;
     }
 
     /* ----- Methods ----- */
 
     @Override
     public @Nullable String fingerprint(@NotNull RequestContext ctx) {
+        HTTP2FrameRecorder frames = frames(ctx);
+        return frames != null ? fingerprint(frames) : null;
+    }
+
+    @Override
+    public @Nullable String hash(@NotNull RequestContext ctx, @NotNull FingerprintHasher hasher) {
+        HTTP2FrameRecorder frames = frames(ctx);
+        return frames != null ? hash(frames, hasher) : null;
+    }
+
+    public @NotNull String fingerprint(@NotNull HTTP2FrameRecorder frames) {
+        return encode(frames).toString();
+    }
+
+    /**
+     * Hashes the fingerprint from its encoded bytes, without building the fingerprint string.
+     */
+    public @NotNull String hash(@NotNull HTTP2FrameRecorder frames, @NotNull FingerprintHasher hasher) {
+        return encode(frames).hash(hasher);
+    }
+
+    private @Nullable HTTP2FrameRecorder frames(@NotNull RequestContext ctx) {
         HttpServletRequest req = ctx.getRequest();
-        HttpSession session = req.getSession();
 
-        String protocol = ctx.getRequest().getProtocol();
+        String protocol = req.getProtocol();
         if (!HTTP_2.toString().equals(protocol)) return null;
 
-        HTTP2SessionFrames frames = (HTTP2SessionFrames) ctx.get(HTTP2_SESSION_ATTRIBUTE);
-        if (frames != null) {
-            session.setAttribute(HTTP2_SESSION_ATTRIBUTE, frames);
-        } else {
-            frames = (HTTP2SessionFrames) session.getAttribute(HTTP2_SESSION_ATTRIBUTE);
-        }
+        Map<Object, Object> attributes = registry.attributes(req);
+        if (attributes == null) return null;
 
-        if (frames == null) return null;
+        return (HTTP2FrameRecorder) attributes.get(HTTP2_SESSION_ATTRIBUTE);
+    }
+
+    private @NotNull FingerprintEncoder encode(@NotNull HTTP2FrameRecorder frames) {
+        FingerprintEncoder encoder = FingerprintEncoder.get();
 
-        StringJoiner settings = new StringJoiner(";");
-        frames.settings().forEach((key, value) ->
-                settings.add(format("%s:%s", key, value)));
+        for (int i = 0; i < frames.settingsCount(); i++)
+            encoder.value(frames.settingId(i), ';').append(':').append(frames.settingValue(i));
 
-        StringJoiner windowUpdates = new StringJoiner(",");
-        frames.windowUpdate().forEach(increment ->
-                windowUpdates.add(increment.toString()));
+        encoder.section('|');
+        for (int i = 0; i < frames.windowUpdatesCount(); i++)
+            encoder.value(frames.windowUpdate(i), ',');
+        if (encoder.isSectionEmpty()) encoder.append('0');
 
-        StringJoiner streamPriorities = new StringJoiner(",");
-        frames.priority().forEach(priority ->
-                streamPriorities.add(format("%s:%s:%s:%s", priority.streamId(),
-                        priority.exclusive() ? 1 : 0, priority.parentStreamId(), priority.weight())));
+        encoder.section('|');
+        for (int i = 0; i < frames.prioritiesCount(); i++) {
+            encoder.value(frames.priorityStreamId(i), ',')
+                    .append(':').append(frames.priorityExclusive(i) ? 1 : 0)
+                    .append(':').append(frames.priorityParentStreamId(i))
+                    .append(':').append(frames.priorityWeight(i));
+        }
+        if (encoder.isSectionEmpty()) encoder.append('0');
 
-        StringJoiner fingerprint = new StringJoiner("|");
-        fingerprint.add(settings.toString());
-        fingerprint.add(windowUpdates.toString());
-        fingerprint.add(streamPriorities.toString());
+        encoder.section('|');
+        for (int i = 0; i < frames.pseudoHeadersCount(); i++) {
+            if (!encoder.isSectionEmpty()) encoder.append(',');
+            encoder.append(frames.pseudoHeader(i));
+        }
 
-        return fingerprint.toString();
+        return encoder;
     }
 
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * The SETTINGS, WINDOW_UPDATE and PRIORITY frames of an HTTP/2 connection preface, and the pseudo-header order and
+ * priority of its first HEADERS frame, kept in fixed-capacity primitive arrays. Frames past the capacity of their kind
+ * are dropped, and once {@link #freeze() frozen} nothing more is recorded, so a long-lived connection holds the same
+ * few hundred bytes for its whole lifetime.
+ * <p>
+ * Written by the connection's parser thread only; readers see the frames through the map they are published to.
+ *
+ * @author George Fitzpatrick
+ */
+public final class HTTP2FrameRecorder {
+
+    /* ----- Fields ----- */
+
+    public static final int MAXIMUM_SETTINGS = 16;
+    public static final int MAXIMUM_WINDOW_UPDATES = 8;
+    public static final int MAXIMUM_PRIORITIES = 16;
+    public static final int MAXIMUM_PSEUDO_HEADERS = 8;
+
+    private static final int PRIORITY_FIELDS = 4;
+
+    private final int[] settings;
+    private final int[] windowUpdates;
+    private final int[] priorities;
+    private final char[] pseudoHeaders;
+    private final int[] headersPriority;
+
+    private int settingsCount;
+    private int windowUpdatesCount;
+    private int prioritiesCount;
+    private int pseudoHeadersCount;
+    private boolean headersPrioritized;
+    private boolean frozen;
+
+    /* ----- Constructors ----- */
+
+    public HTTP2FrameRecorder() {
+        this.settings = new int[MAXIMUM_SETTINGS * 2];
+        this.windowUpdates = new int[MAXIMUM_WINDOW_UPDATES];
+        this.priorities = new int[MAXIMUM_PRIORITIES * PRIORITY_FIELDS];
+        this.pseudoHeaders = new char[MAXIMUM_PSEUDO_HEADERS];
+        this.headersPriority = new int[PRIORITY_FIELDS - 1];
+    }
+
+    /* ----- Methods ----- */
+
+    public boolean addSetting(int id, int value) {
+        if (frozen || settingsCount == MAXIMUM_SETTINGS) return false;
+
+        settings[settingsCount * 2] = id;
+        settings[settingsCount * 2 + 1] = value;
+        settingsCount++;
+        return true;
+    }
+
+    public boolean addWindowUpdate(int delta) {
+        if (frozen || windowUpdatesCount == MAXIMUM_WINDOW_UPDATES) return false;
+
+        windowUpdates[windowUpdatesCount++] = delta;
+        return true;
+    }
+
+    public boolean addPriority(int streamId, boolean exclusive, int parentStreamId, int weight) {
+        if (frozen || prioritiesCount == MAXIMUM_PRIORITIES) return false;
+
+        int offset = prioritiesCount * PRIORITY_FIELDS;
+        priorities[offset] = streamId;
+        priorities[offset + 1] = exclusive ? 1 : 0;
+        priorities[offset + 2] = parentStreamId;
+        priorities[offset + 3] = weight;
+        prioritiesCount++;
+        return true;
+    }
+
+    /**
+     * @param pseudoHeader the first letter of the pseudo-header name, e.g. {@code m} for {@code :method}
+     */
+    public boolean addPseudoHeader(char pseudoHeader) {
+        if (frozen || pseudoHeadersCount == MAXIMUM_PSEUDO_HEADERS) return false;
+
+        pseudoHeaders[pseudoHeadersCount++] = pseudoHeader;
+        return true;
+    }
+
+    public boolean setHeadersPriority(boolean exclusive, int parentStreamId, int weight) {
+        if (frozen) return false;
+
+        headersPriority[0] = exclusive ? 1 : 0;
+        headersPriority[1] = parentStreamId;
+        headersPriority[2] = weight;
+        headersPrioritized = true;
+        return true;
+    }
+
+    public void freeze() {
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public int settingsCount() {
+        return settingsCount;
+    }
+
+    public int settingId(int index) {
+        return settings[checkIndex(index, settingsCount) * 2];
+    }
+
+    public int settingValue(int index) {
+        return settings[checkIndex(index, settingsCount) * 2 + 1];
+    }
+
+    public int windowUpdatesCount() {
+        return windowUpdatesCount;
+    }
+
+    public int windowUpdate(int index) {
+        return windowUpdates[checkIndex(index, windowUpdatesCount)];
+    }
+
+    public int prioritiesCount() {
+        return prioritiesCount;
+    }
+
+    public int priorityStreamId(int index) {
+        return priorities[checkIndex(index, prioritiesCount) * PRIORITY_FIELDS];
+    }
+
+    public boolean priorityExclusive(int index) {
+        return priorities[checkIndex(index, prioritiesCount) * PRIORITY_FIELDS + 1] != 0;
+    }
+
+    public int priorityParentStreamId(int index) {
+        return priorities[checkIndex(index, prioritiesCount) * PRIORITY_FIELDS + 2];
+    }
+
+    public int priorityWeight(int index) {
+        return priorities[checkIndex(index, prioritiesCount) * PRIORITY_FIELDS + 3];
+    }
+
+    public int pseudoHeadersCount() {
+        return pseudoHeadersCount;
+    }
+
+    public char pseudoHeader(int index) {
+        return pseudoHeaders[checkIndex(index, pseudoHeadersCount)];
+    }
+
+    public boolean isHeadersPrioritized() {
+        return headersPrioritized;
+    }
+
+    public boolean headersPriorityExclusive() {
+        return headersPriority[0] != 0;
+    }
+
+    public int headersPriorityParentStreamId() {
+        return headersPriority[1];
+    }
+
+    public int headersPriorityWeight() {
+        return headersPriority[2];
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index: " + index + ", count: " + count);
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", getClass().getSimpleName() + "[", "]")
+                .add("settings=" + Arrays.toString(Arrays.copyOf(settings, settingsCount * 2)))
+                .add("windowUpdates=" + Arrays.toString(Arrays.copyOf(windowUpdates, windowUpdatesCount)))
+                .add("priorities=" + Arrays.toString(Arrays.copyOf(priorities, prioritiesCount * PRIORITY_FIELDS)))
+                .add("pseudoHeaders=" + new String(pseudoHeaders, 0, pseudoHeadersCount))
+                .add("headersPriority=" + (headersPrioritized ? Arrays.toString(headersPriority) : null))
+                .add("frozen=" + frozen)
+                .toString();
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
+
+import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.http2.hpack.Huffman;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the order of the pseudo-headers from the start of an HPACK header block, without decoding the block. Jetty's
+ * decoder builds the request from the pseudo-headers and drops the order they were sent in, which is what tells
+ * clients apart.
+ * <p>
+ * Pseudo-headers precede every regular header, so the scan stops at the first header that is not one, and at anything
+ * it cannot read without the dynamic table.
+ *
+ * @author George Fitzpatrick
+ */
+final class HTTP2HeaderBlockScanner {
+
+    /* ----- Constructors ----- */
+
+    private HTTP2HeaderBlockScanner() {
+
+    }
+
+    /* ----- Methods ----- */
+
+    static void scan(@NotNull ByteBuffer block, @NotNull HTTP2FrameRecorder frames) {
+        while (block.hasRemaining()) {
+            int b = block.get(block.position()) & 0xff;
+
+            // dynamic table size update
+            if ((b & 0xe0) == 0x20) {
+                if (integer(block, 5) < 0) return;
+                continue;
+            }
+
+            boolean indexed = (b & 0x80) != 0;
+            int index = integer(block, indexed ? 7 : (b & 0x40) != 0 ? 6 : 4);
+            if (index < 0) return;
+
+            char pseudoHeader = indexed || index != 0 ? pseudoHeader(index) : pseudoHeader(string(block));
+            if (pseudoHeader == 0) return;
+
+            frames.addPseudoHeader(pseudoHeader);
+
+            // only the name matters, so a literal value is skipped
+            if (!indexed && !skip(block)) return;
+        }
+    }
+
+    /*
+     * Entries 1 to 7 of the static table, the only ones naming request pseudo-headers.
+     */
+    private static char pseudoHeader(int index) {
+        switch (index) {
+            case 1:
+                return 'a';
+            case 2:
+            case 3:
+                return 'm';
+            case 4:
+            case 5:
+                return 'p';
+            case 6:
+            case 7:
+                return 's';
+            default:
+                return 0;
+        }
+    }
+
+    private static char pseudoHeader(@Nullable String name) {
+        if (name == null) return 0;
+
+        switch (name) {
+            case ":authority":
+                return 'a';
+            case ":method":
+                return 'm';
+            case ":path":
+                return 'p';
+            case ":scheme":
+                return 's';
+            default:
+                return 0;
+        }
+    }
+
+    private static int integer(@NotNull ByteBuffer buffer, int prefix) {
+        int mask = (1 << prefix) - 1;
+        int value = buffer.get() & mask;
+        if (value < mask) return value;
+
+        for (int shift = 0; shift < 28; shift += 7) {
+            if (!buffer.hasRemaining()) return -1;
+
+            int b = buffer.get() & 0xff;
+            value += (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        return -1;
+    }
+
+    private static @Nullable String string(@NotNull ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) return null;
+
+        boolean huffman = (buffer.get(buffer.position()) & 0x80) != 0;
+        int length = integer(buffer, 7);
+        if (length < 0 || length > buffer.remaining()) return null;
+
+        if (huffman) {
+            try {
+                return Huffman.decode(buffer, length);
+            } catch (HpackException.CompressionException e) {
+                return null;
+            }
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean skip(@NotNull ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) return false;
+
+        int length = integer(buffer, 7);
+        if (length < 0 || length > buffer.remaining()) return false;
+
+        buffer.position(buffer.position() + length);
+        return true;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
+
+import org.eclipse.jetty.http2.Flags;
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.FrameType;
+import org.eclipse.jetty.http2.frames.PriorityFrame;
+import org.eclipse.jetty.http2.parser.RateControl;
+import org.eclipse.jetty.http2.parser.ServerParser;
+import org.eclipse.jetty.io.ByteBufferPool;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Shows the listener the raw header block of the first HEADERS frame before the frame is decoded, while the listener is
+ * still recording the preface. Once the listener is frozen, frames are parsed as usual.
+ *
+ * @author George Fitzpatrick
+ */
+final class HTTP2ServerParser extends ServerParser {
+
+    /* ----- Fields ----- */
+
+    private final HTTP2ServerParserListener listener;
+
+    private int remaining = -1;
+    private int padding;
+    private int skip;
+
+    /* ----- Constructors ----- */
+
+    HTTP2ServerParser(ByteBufferPool byteBufferPool, HTTP2ServerParserListener listener, int maxDynamicTableSize,
+                      int maxHeaderSize, RateControl rateControl) {
+        super(byteBufferPool, listener, maxDynamicTableSize, maxHeaderSize, rateControl);
+        this.listener = listener;
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    protected boolean parseHeader(ByteBuffer buffer) {
+        int position = buffer.position();
+        boolean parsed = super.parseHeader(buffer);
+
+        remaining = -1;
+
+        // the length is only known here when the whole frame header arrived in this buffer
+        if (parsed && !listener.isFrozen() && getFrameType() == FrameType.HEADERS.getType()
+                && buffer.position() - position == Frame.HEADER_LENGTH) {
+            remaining = (buffer.get(position) & 0xff) << 16 | (buffer.get(position + 1) & 0xff) << 8
+                    | buffer.get(position + 2) & 0xff;
+            padding = hasFlag(Flags.PADDING) ? -1 : 0;
+            skip = hasFlag(Flags.PRIORITY) ? PriorityFrame.PRIORITY_LENGTH : 0;
+        }
+
+        return parsed;
+    }
+
+    @Override
+    protected boolean parseBody(ByteBuffer buffer) {
+        if (remaining > 0 && buffer.hasRemaining()) headerBlock(buffer);
+        return super.parseBody(buffer);
+    }
+
+    /*
+     * The body may arrive over several buffers, so the pad length and priority fields are stepped over as they come
+     * and the listener is handed whatever of the header block is in the first buffer that has any.
+     */
+    private void headerBlock(ByteBuffer buffer) {
+        ByteBuffer body = buffer.slice();
+        if (body.remaining() > remaining) body.limit(remaining);
+        remaining -= body.remaining();
+
+        if (padding < 0) padding = body.get() & 0xff;
+
+        int skipped = Math.min(skip, body.remaining());
+        body.position(body.position() + skipped);
+        skip -= skipped;
+
+        // the part of the trailing padding that falls in this buffer
+        int trailing = Math.max(0, padding - remaining);
+        body.limit(Math.max(body.position(), body.limit() - trailing));
+
+        if (skip == 0 && body.hasRemaining()) {
+            listener.onHeaderBlock(body);
+            remaining = -1;
+        } else if (remaining == 0) {
+            remaining = -1;
+        }
+    }
+
+}
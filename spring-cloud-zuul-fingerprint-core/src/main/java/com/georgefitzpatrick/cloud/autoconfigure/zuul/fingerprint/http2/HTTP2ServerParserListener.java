@@ -14,18 +14,29 @@
  * limitations under the License.
  */
 
+
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
 
-import com.netflix.zuul.context.RequestContext;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus.CorpusRecorder;
+import org.eclipse.jetty.http2.HTTP2Session;
 import org.eclipse.jetty.http2.frames.*;
 import org.eclipse.jetty.http2.parser.ServerParser;
+import org.eclipse.jetty.io.EndPoint;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.HTTP2_SESSION_ATTRIBUTE;
 
 /**
+ * Collects the frames a client sends before its first HEADERS frame. The parser of a connection calls back on one
+ * thread at a time, so the frames are kept on the listener and only published to the connection's attributes, for
+ * request threads to read, once the first HEADERS frame ends the preface. From then on the recorder is frozen and every
+ * frame goes straight to the delegate.
+ *
  * @author George Fitzpatrick
  */
 public final class HTTP2ServerParserListener implements ServerParser.Listener {
@@ -33,11 +44,23 @@ public final class HTTP2ServerParserListener implements ServerParser.Listener {
     /* ----- Fields ----- */
 
     private final ServerParser.Listener delegate;
+    private final ConnectionRegistry registry;
+    private final CorpusRecorder recorder;
+
+    private HTTP2FrameRecorder frames;
+    private boolean frozen;
 
     /* ----- Constructors ----- */
 
-    public HTTP2ServerParserListener(ServerParser.Listener delegate) {
+    public HTTP2ServerParserListener(ServerParser.Listener delegate, @NotNull ConnectionRegistry registry) {
+        this(delegate, registry, null);
+    }
+
+    public HTTP2ServerParserListener(ServerParser.Listener delegate, @NotNull ConnectionRegistry registry,
+                                     @Nullable CorpusRecorder recorder) {
         this.delegate = delegate;
+        this.registry = registry;
+        this.recorder = recorder;
     }
 
     /* ----- Methods ----- */
@@ -54,19 +77,50 @@ public final class HTTP2ServerParserListener implements ServerParser.Listener {
 
     @Override
     public void onHeaders(HeadersFrame frame) {
+        if (!frozen) {
+            PriorityFrame priority = frame.getPriority();
+            if (frames != null && priority != null)
+                frames.setHeadersPriority(priority.isExclusive(), priority.getParentStreamId(), priority.getWeight());
+
+            freeze();
+        }
+
         delegate.onHeaders(frame);
     }
 
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /*
+     * Called by the parser with the start of the header block of a HEADERS frame before it is decoded, so the
+     * pseudo-header order is read from the first one.
+     */
+    void onHeaderBlock(@NotNull ByteBuffer block) {
+        if (!frozen && frames != null) HTTP2HeaderBlockScanner.scan(block, frames);
+    }
+
+    /*
+     * Published before the stream is dispatched, so the request thread always finds the frames.
+     */
+    private void freeze() {
+        frozen = true;
+        if (frames == null) return;
+
+        frames.freeze();
+
+        EndPoint endPoint = delegate instanceof HTTP2Session ? ((HTTP2Session) delegate).getEndPoint() : null;
+        Map<Object, Object> attributes = endPoint != null ? registry.attributes(endPoint) : null;
+        if (attributes != null) attributes.put(HTTP2_SESSION_ATTRIBUTE, frames);
+
+        if (recorder != null) recorder.preface(frames);
+    }
+
     @Override
     public void onPriority(@NotNull PriorityFrame frame) {
-        int streamId = frame.getStreamId();
-        boolean exclusive = frame.isExclusive();
-        int dependentStreamId = frame.getParentStreamId();
-        int weight = frame.getWeight();
-        HTTP2PriorityFrame priority = new HTTP2PriorityFrame(streamId, exclusive, dependentStreamId, weight);
-        RequestContext ctx = RequestContext.getCurrentContext();
-        HTTP2SessionFrames session = (HTTP2SessionFrames) ctx.get(HTTP2_SESSION_ATTRIBUTE);
-        session.priority().add(priority);
+        if (!frozen && frames != null)
+            frames.addPriority(frame.getStreamId(), frame.isExclusive(), frame.getParentStreamId(), frame.getWeight());
+
         delegate.onPriority(frame);
     }
 
@@ -77,10 +131,12 @@ public final class HTTP2ServerParserListener implements ServerParser.Listener {
 
     @Override
     public void onSettings(@NotNull SettingsFrame frame) {
-        Map<Integer, Integer> settings = frame.getSettings();
-        HTTP2SessionFrames session = new HTTP2SessionFrames(settings);
-        RequestContext ctx = RequestContext.getCurrentContext();
-        ctx.set(HTTP2_SESSION_ATTRIBUTE, session);
+        // only the client's own first SETTINGS, not its acknowledgement of ours
+        if (!frozen && frames == null && !frame.isReply()) {
+            frames = new HTTP2FrameRecorder();
+            for (Map.Entry<Integer, Integer> setting : frame.getSettings().entrySet())
+                frames.addSetting(setting.getKey(), setting.getValue());
+        }
         delegate.onSettings(frame);
     }
 
@@ -101,10 +157,7 @@ public final class HTTP2ServerParserListener implements ServerParser.Listener {
 
     @Override
     public void onWindowUpdate(@NotNull WindowUpdateFrame frame) {
-        int increment = frame.getWindowDelta();
-        RequestContext ctx = RequestContext.getCurrentContext();
-        HTTP2SessionFrames session = (HTTP2SessionFrames) ctx.get(HTTP2_SESSION_ATTRIBUTE);
-        session.windowUpdate().add(increment);
+        if (!frozen && frames != null) frames.addWindowUpdate(frame.getWindowDelta());
         delegate.onWindowUpdate(frame);
     }
 
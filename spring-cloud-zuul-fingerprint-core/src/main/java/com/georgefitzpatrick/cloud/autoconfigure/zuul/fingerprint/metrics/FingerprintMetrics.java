@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics;
+
+/**
+ * Observations of each stage of fingerprinting and rate limiting. Durations are in nanoseconds, and every method
+ * defaults to doing nothing, so implementations record only what they need.
+ *
+ * @author George Fitzpatrick
+ */
+public interface FingerprintMetrics {
+
+    /* ----- Fields ----- */
+
+    FingerprintMetrics NOOP = new FingerprintMetrics() {
+
+    };
+
+    /* ----- Methods ----- */
+
+    default void clientHelloCaptured(long parseNanos) {
+
+    }
+
+    default void clientHelloFailed() {
+
+    }
+
+    /**
+     * @param fingerprinter the simple class name of the fingerprinter, so tags are bounded by the registered beans.
+     */
+    default void fingerprinted(String fingerprinter, long nanos, boolean present) {
+
+    }
+
+    default void hashed(long nanos) {
+
+    }
+
+    default void lookedUp(long nanos, int hits, int misses) {
+
+    }
+
+    default void scored(double score) {
+
+    }
+
+    default void consumed(long nanos) {
+
+    }
+
+    /**
+     * @param policy the index of the exceeded policy in {@code zuul.fingerprint.policies}.
+     */
+    default void rejected(int policy) {
+
+    }
+
+    /**
+     * @param reason why a request was refused before any policy was counted: {@code banned} while its key or origin is
+     *               on the ban list, or {@code fallback} when a failed lookup fails closed.
+     */
+    default void rejected(String reason) {
+
+    }
+
+}
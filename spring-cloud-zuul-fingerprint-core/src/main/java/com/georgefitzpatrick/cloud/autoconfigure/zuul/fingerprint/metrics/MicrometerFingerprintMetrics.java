@@ -0,0 +1,220 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.CachingDataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter.TrustFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters under {@code fingerprint.*}. Tags only ever take fingerprinter class names, policy indices and
+ * fixed outcomes, so their cardinality is bounded by the configuration rather than by traffic.
+ *
+ * @author George Fitzpatrick
+ */
+public final class MicrometerFingerprintMetrics implements FingerprintMetrics {
+
+    /* ----- Fields ----- */
+
+    private static final String PREFIX = "fingerprint";
+
+    private static final double[] SCORE_BUCKETS = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0};
+
+    private final MeterRegistry registry;
+
+    private final Counter captured;
+    private final Counter failed;
+    private final Timer parse;
+    private final Timer hash;
+    private final Timer dataset;
+    private final Counter hits;
+    private final Counter misses;
+    private final DistributionSummary score;
+    private final Timer bucket;
+
+    private final ConcurrentMap<String, Timer> fingerprinters;
+    private final ConcurrentMap<String, Counter> absent;
+    private final ConcurrentMap<Integer, Counter> rejected;
+    private final ConcurrentMap<String, Counter> refused;
+
+    /* ----- Constructors ----- */
+
+    public MicrometerFingerprintMetrics(@NotNull MeterRegistry registry, @NotNull String hashAlgorithm) {
+        this.registry = registry;
+
+        this.captured = Counter.builder(PREFIX + ".client.hello.capture")
+                .description("ClientHellos captured from TLS handshakes")
+                .tag("result", "success")
+                .register(registry);
+        this.failed = Counter.builder(PREFIX + ".client.hello.capture")
+                .description("ClientHellos captured from TLS handshakes")
+                .tag("result", "failure")
+                .register(registry);
+        this.parse = Timer.builder(PREFIX + ".client.hello.parse")
+                .description("Time to index a captured ClientHello")
+                .register(registry);
+        this.hash = Timer.builder(PREFIX + ".hash")
+                .description("Time to hash a fingerprint")
+                .tag("algorithm", hashAlgorithm)
+                .register(registry);
+        this.dataset = Timer.builder(PREFIX + ".dataset")
+                .description("Time to look up the fingerprints of a request")
+                .register(registry);
+        this.hits = Counter.builder(PREFIX + ".dataset.lookups")
+                .description("Fingerprints looked up in the dataset")
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder(PREFIX + ".dataset.lookups")
+                .description("Fingerprints looked up in the dataset")
+                .tag("result", "miss")
+                .register(registry);
+        this.score = DistributionSummary.builder(PREFIX + ".score")
+                .description("Trust score of each request")
+                .serviceLevelObjectives(SCORE_BUCKETS)
+                .register(registry);
+        this.bucket = Timer.builder(PREFIX + ".bucket")
+                .description("Time to count a request against every policy")
+                .register(registry);
+
+        this.fingerprinters = new ConcurrentHashMap<>();
+        this.absent = new ConcurrentHashMap<>();
+        this.rejected = new ConcurrentHashMap<>();
+        this.refused = new ConcurrentHashMap<>();
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public void clientHelloCaptured(long parseNanos) {
+        captured.increment();
+        parse.record(parseNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void clientHelloFailed() {
+        failed.increment();
+    }
+
+    /*
+     * Null rate is fingerprint.absent over the count of fingerprint.compute, per fingerprinter.
+     */
+    @Override
+    public void fingerprinted(String fingerprinter, long nanos, boolean present) {
+        fingerprinters.computeIfAbsent(fingerprinter, name -> Timer.builder(PREFIX + ".compute")
+                .description("Time to compute a fingerprint")
+                .tag("fingerprinter", name)
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+
+        if (present) return;
+
+        absent.computeIfAbsent(fingerprinter, name -> Counter.builder(PREFIX + ".absent")
+                .description("Requests a fingerprinter had no fingerprint for")
+                .tag("fingerprinter", name)
+                .register(registry)).increment();
+    }
+
+    @Override
+    public void hashed(long nanos) {
+        hash.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void lookedUp(long nanos, int hits, int misses) {
+        dataset.record(nanos, TimeUnit.NANOSECONDS);
+        this.hits.increment(hits);
+        this.misses.increment(misses);
+    }
+
+    @Override
+    public void scored(double score) {
+        this.score.record(score);
+    }
+
+    @Override
+    public void consumed(long nanos) {
+        bucket.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void rejected(int policy) {
+        rejected.computeIfAbsent(policy, index -> Counter.builder(PREFIX + ".rejected")
+                .description("Requests refused by the filter")
+                .tag("reason", "policy")
+                .tag("policy", Integer.toString(index))
+                .register(registry)).increment();
+    }
+
+    /*
+     * Shares fingerprint.rejected with the policy rejections, so its total is every request the filter refused.
+     */
+    @Override
+    public void rejected(String reason) {
+        refused.computeIfAbsent(reason, name -> Counter.builder(PREFIX + ".rejected")
+                .description("Requests refused by the filter")
+                .tag("reason", name)
+                .tag("policy", "none")
+                .register(registry)).increment();
+    }
+
+    /**
+     * Binds the outcomes of the deadline-bounded lookups of a filter, which are counted on the filter itself.
+     */
+    public static @NotNull MeterBinder asyncOutcomes(@NotNull TrustFilter filter) {
+        return registry -> {
+            FunctionCounter.builder(PREFIX + ".async", filter, TrustFilter::getTimeoutCount)
+                    .description("Lookups that missed the deadline, failed, or fell back")
+                    .tag("result", "timeout")
+                    .register(registry);
+            FunctionCounter.builder(PREFIX + ".async", filter, TrustFilter::getErrorCount)
+                    .description("Lookups that missed the deadline, failed, or fell back")
+                    .tag("result", "error")
+                    .register(registry);
+            FunctionCounter.builder(PREFIX + ".async", filter, TrustFilter::getFallbackCount)
+                    .description("Lookups that missed the deadline, failed, or fell back")
+                    .tag("result", "fallback")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Binds the hits and misses of an in-process dataset cache, which are counted on the cache itself.
+     */
+    public static @NotNull MeterBinder datasetCache(@NotNull CachingDataset dataset) {
+        return registry -> {
+            FunctionCounter.builder(PREFIX + ".dataset.cache", dataset, CachingDataset::hitCount)
+                    .description("Dataset reads served by the in-process cache or loaded into it")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder(PREFIX + ".dataset.cache", dataset, CachingDataset::missCount)
+                    .description("Dataset reads served by the in-process cache or loaded into it")
+                    .tag("result", "miss")
+                    .register(registry);
+        };
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics.FingerprintMetrics;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLSession;
+import java.nio.ByteBuffer;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.CLIENT_HELLO_ATTRIBUTE;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLRecord.HANDSHAKE_HEADER_LENGTH;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLRecord.HEADER_LENGTH;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBuffers.getUInt24;
+
+/**
+ * Single-shot capture of the first ClientHello on a connection, fed with the bytes the engine consumed.
+ *
+ * @author George Fitzpatrick
+ */
+public final class ClientHelloCapture {
+
+    /* ----- Fields ----- */
+
+    public static final int MAX_CLIENT_HELLO_LENGTH = 1 << 14;
+
+    private static final int CAPACITY = HANDSHAKE_HEADER_LENGTH + MAX_CLIENT_HELLO_LENGTH;
+
+    private final ByteBufferPool bufferPool;
+    private final FingerprintMetrics metrics;
+    private final byte[] recordHeader;
+
+    private State state;
+    private int recordHeaderFill;
+    private int recordRemaining;
+    private int handshakeLength;
+    private ByteBuffer buffer;
+    private ClientHelloView clientHello;
+
+    /* ----- Constructors ----- */
+
+    public ClientHelloCapture(@Nullable ByteBufferPool bufferPool) {
+        this(bufferPool, FingerprintMetrics.NOOP);
+    }
+
+    public ClientHelloCapture(@Nullable ByteBufferPool bufferPool, @NotNull FingerprintMetrics metrics) {
+        this.bufferPool = bufferPool;
+        this.metrics = metrics;
+        this.recordHeader = new byte[HEADER_LENGTH];
+        this.state = State.PEEK;
+        this.handshakeLength = -1;
+    }
+
+    /* ----- Methods ----- */
+
+    public boolean isDone() {
+        return state == State.DONE;
+    }
+
+    public boolean isCapturing() {
+        return state == State.PEEK || state == State.REASSEMBLE;
+    }
+
+    public @Nullable ClientHelloView clientHello() {
+        return clientHello;
+    }
+
+    public void feed(@NotNull ByteBuffer src, int from, int to) {
+        while (from < to && isCapturing()) {
+            from = recordRemaining == 0 ? readRecordHeader(src, from, to) : readFragment(src, from, to);
+        }
+    }
+
+    private int readRecordHeader(@NotNull ByteBuffer src, int from, int to) {
+        int n = Math.min(HEADER_LENGTH - recordHeaderFill, to - from);
+        for (int i = 0; i < n; i++) recordHeader[recordHeaderFill++] = src.get(from + i);
+        if (recordHeaderFill < HEADER_LENGTH) return from + n;
+
+        recordHeaderFill = 0;
+
+        // anything but a handshake record before the ClientHello is complete means there is none to capture
+        if (Bytes.toUint8(recordHeader[0]) != SSLRecordType.HANDSHAKE.value()) {
+            fail();
+            return to;
+        }
+
+        recordRemaining = Bytes.toUint16(recordHeader[3], recordHeader[4]);
+        if (state == State.PEEK) {
+            buffer = acquire();
+            state = State.REASSEMBLE;
+        }
+
+        return from + n;
+    }
+
+    private int readFragment(@NotNull ByteBuffer src, int from, int to) {
+        int n = Math.min(recordRemaining, to - from);
+        if (n > buffer.remaining()) {
+            fail();
+            return to;
+        }
+
+        ByteBuffer fragment = src.duplicate();
+        fragment.limit(from + n).position(from);
+        buffer.put(fragment);
+        recordRemaining -= n;
+
+        int filled = buffer.position();
+        if (filled < HANDSHAKE_HEADER_LENGTH) return from + n;
+
+        if (handshakeLength < 0) {
+            int handshakeType = Bytes.toUint8(buffer.get(0));
+            handshakeLength = getUInt24(buffer, 1);
+
+            if (handshakeType != SSLHandshakeType.CLIENT_HELLO.value() || handshakeLength > MAX_CLIENT_HELLO_LENGTH) {
+                fail();
+                return to;
+            }
+        }
+
+        if (filled >= HANDSHAKE_HEADER_LENGTH + handshakeLength) complete();
+
+        return from + n;
+    }
+
+    private void complete() {
+        // the session outlives the pooled buffer, so the body is retained in a buffer of its own
+        byte[] body = new byte[handshakeLength];
+        buffer.position(HANDSHAKE_HEADER_LENGTH);
+        buffer.get(body);
+        release();
+
+        long start = System.nanoTime();
+        try {
+            clientHello = new ClientHelloView().wrap(ByteBuffer.wrap(body));
+            state = State.PUBLISH;
+            metrics.clientHelloCaptured(System.nanoTime() - start);
+        } catch (IllegalStateException e) {
+            // malformed hellos are left for the engine to reject
+            state = State.DONE;
+            metrics.clientHelloFailed();
+        }
+    }
+
+    public void publish(@Nullable SSLSession session) {
+        if (state != State.PUBLISH || session == null) return;
+
+        session.putValue(CLIENT_HELLO_ATTRIBUTE, clientHello);
+        state = State.DONE;
+    }
+
+    public void close() {
+        // a connection torn down mid-hello
+        if (state == State.REASSEMBLE) metrics.clientHelloFailed();
+
+        release();
+        state = State.DONE;
+    }
+
+    private void fail() {
+        metrics.clientHelloFailed();
+        release();
+        state = State.DONE;
+    }
+
+    private @NotNull ByteBuffer acquire() {
+        ByteBuffer buffer = bufferPool == null ? ByteBuffer.allocate(CAPACITY) : bufferPool.acquire(CAPACITY, false);
+        buffer.clear().limit(CAPACITY);
+        return buffer;
+    }
+
+    private void release() {
+        if (buffer == null) return;
+        if (bufferPool != null) bufferPool.release(buffer);
+        buffer = null;
+    }
+
+    /* ----- Classes ----- */
+
+    private enum State {
+
+        PEEK,
+        REASSEMBLE,
+        PUBLISH,
+        DONE
+
+    }
+
+}
@@ -16,7 +16,13 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus.CorpusRecorder;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics.FingerprintMetrics;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.net.ssl.SSLEngine;
 import java.net.InetSocketAddress;
@@ -26,30 +32,66 @@ import java.net.InetSocketAddress;
  */
 public class CustomSSLContextFactory extends SslContextFactory.Server {
 
+    /* ----- Fields ----- */
+
+    private final ByteBufferPool bufferPool;
+
+    private volatile HandshakeFilter handshakeFilter;
+    private volatile FingerprintMetrics metrics = FingerprintMetrics.NOOP;
+    private volatile CorpusRecorder recorder;
+
     /* ----- Constructors ----- */
 
     public CustomSSLContextFactory() {
+        this(new ArrayByteBufferPool());
+    }
 
+    public CustomSSLContextFactory(ByteBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
     }
 
     /* ----- Methods ----- */
 
+    public @Nullable HandshakeFilter getHandshakeFilter() {
+        return handshakeFilter;
+    }
+
+    public void setHandshakeFilter(@Nullable HandshakeFilter handshakeFilter) {
+        this.handshakeFilter = handshakeFilter;
+    }
+
+    public @NotNull FingerprintMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(@NotNull FingerprintMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public @Nullable CorpusRecorder getRecorder() {
+        return recorder;
+    }
+
+    public void setRecorder(@Nullable CorpusRecorder recorder) {
+        this.recorder = recorder;
+    }
+
     @Override
     public SSLEngine newSSLEngine() {
         SSLEngine delegate = super.newSSLEngine();
-        return new SSLEngineWrapper(delegate);
+        return new SSLEngineWrapper(delegate, bufferPool, handshakeFilter, metrics, recorder);
     }
 
     @Override
     public SSLEngine newSSLEngine(String host, int port) {
         SSLEngine delegate = super.newSSLEngine();
-        return new SSLEngineWrapper(delegate);
+        return new SSLEngineWrapper(delegate, bufferPool, handshakeFilter, metrics, recorder);
     }
 
     @Override
     public SSLEngine newSSLEngine(InetSocketAddress address) {
         SSLEngine delegate = super.newSSLEngine();
-        return new SSLEngineWrapper(delegate);
+        return new SSLEngineWrapper(delegate, bufferPool, handshakeFilter, metrics, recorder);
     }
 
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decides whether a handshake may go on as soon as its ClientHello has been read.
+ *
+ * @author George Fitzpatrick
+ */
+@FunctionalInterface
+public interface HandshakeFilter {
+
+    boolean accept(@NotNull ClientHelloView clientHello);
+
+}
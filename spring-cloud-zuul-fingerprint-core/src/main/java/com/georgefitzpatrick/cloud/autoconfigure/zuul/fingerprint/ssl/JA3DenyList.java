@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refuses handshakes whose hashed JA3 fingerprint has been denied.
+ *
+ * @author George Fitzpatrick
+ */
+public final class JA3DenyList implements HandshakeFilter {
+
+    /* ----- Fields ----- */
+
+    private final JA3Fingerprinter fingerprinter;
+    private final FingerprintHasher hasher;
+    private final Set<String> denied;
+
+    /* ----- Constructors ----- */
+
+    public JA3DenyList(@NotNull FingerprintHasher hasher, @NotNull Collection<String> denied) {
+        this.fingerprinter = new JA3Fingerprinter();
+        this.hasher = hasher;
+        this.denied = ConcurrentHashMap.newKeySet();
+        this.denied.addAll(denied);
+    }
+
+    /* ----- Methods ----- */
+
+    @Override
+    public boolean accept(@NotNull ClientHelloView clientHello) {
+        if (denied.isEmpty()) return true;
+        return !denied.contains(fingerprinter.hash(clientHello, hasher));
+    }
+
+    public void deny(@NotNull String hash) {
+        denied.add(hash);
+    }
+
+    public void allow(@NotNull String hash) {
+        denied.remove(hash);
+    }
+
+    public int size() {
+        return denied.size();
+    }
+
+}
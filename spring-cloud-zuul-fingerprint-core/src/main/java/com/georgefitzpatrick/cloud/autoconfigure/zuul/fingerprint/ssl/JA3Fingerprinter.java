@@ -15,33 +15,26 @@
  */
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Fingerprinter;
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension.ECPointFormats;
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension.SupportedGroups;
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHello;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.FingerprintEncoder;
 import com.netflix.zuul.context.RequestContext;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.net.ssl.SSLSession;
 import javax.servlet.http.HttpServletRequest;
-import java.util.Arrays;
-import java.util.StringJoiner;
-import java.util.stream.IntStream;
 
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.CLIENT_HELLO_ATTRIBUTE;
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.JETTY_SSL_SESSION_ATTRIBUTE;
-import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLExtensionType.EC_POINT_FORMATS;
-import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLExtensionType.SUPPORTED_GROUPS;
 
 public final class JA3Fingerprinter implements Fingerprinter {
 
     /* ----- Fields ----- */
 
-    private static final int[] GREASE_TABLE = {
-            0x0a0a, 0x1a1a, 0x2a2a, 0x3a3a, 0x4a4a, 0x5a5a, 0x6a6a, 0x7a7a,
-            0x8a8a, 0x9a9a, 0xaaaa, 0xbaba, 0xcaca, 0xdada, 0xeaea, 0xfafa
-    };
+    private static final char SECTION_DELIMITER = ',';
+    private static final char VALUE_DELIMITER = '-';
 
     /* ----- Constructors ----- */
 
@@ -53,74 +46,62 @@ public final class JA3Fingerprinter implements Fingerprinter {
 
     @Override
     public @Nullable String fingerprint(@NotNull RequestContext ctx) {
-        HttpServletRequest req = ctx.getRequest();
-
-        SSLSession session = (SSLSession) req.getAttribute(JETTY_SSL_SESSION_ATTRIBUTE);
-        if (session == null) return null;
-
-        ClientHello clientHello = (ClientHello) session.getValue(CLIENT_HELLO_ATTRIBUTE);
-        if (clientHello == null) return null;
-
-        StringJoiner fingerprint = new StringJoiner(",");
-
-        int protocol = clientHello.clientVersion().value();
-        String strProtocol = String.valueOf(protocol);
-        fingerprint.add(strProtocol);
-
-        int[] cipherSuites = cipherSuites(clientHello);
-        write(fingerprint, cipherSuites);
-
-        int[] extensionTypes = extensionsTypes(clientHello);
-        write(fingerprint, extensionTypes);
-
-        int[] supportedGroups = supportedGroups(clientHello);
-        write(fingerprint, supportedGroups);
+        ClientHelloView clientHello = clientHello(ctx);
+        return clientHello != null ? fingerprint(clientHello) : null;
+    }
 
-        int[] ecPointFormats = ecPointFormats(clientHello);
-        write(fingerprint, ecPointFormats);
+    @Override
+    public @Nullable String hash(@NotNull RequestContext ctx, @NotNull FingerprintHasher hasher) {
+        ClientHelloView clientHello = clientHello(ctx);
+        return clientHello != null ? hash(clientHello, hasher) : null;
+    }
 
-        return fingerprint.toString();
+    public @NotNull String fingerprint(@NotNull ClientHelloView clientHello) {
+        return encode(clientHello).toString();
     }
 
-    private int @NotNull [] cipherSuites(@NotNull ClientHello clientHello) {
-        return Arrays.stream(clientHello.cipherSuites()).mapToInt(SSLCipherSuite::value).toArray();
+    /**
+     * Hashes the fingerprint from its encoded bytes, without building the fingerprint string.
+     */
+    public @NotNull String hash(@NotNull ClientHelloView clientHello, @NotNull FingerprintHasher hasher) {
+        return encode(clientHello).hash(hasher);
     }
 
-    private void write(StringJoiner fingerprint, int @NotNull [] iArr) {
-        StringJoiner sj = new StringJoiner("-");
+    private static @Nullable ClientHelloView clientHello(@NotNull RequestContext ctx) {
+        HttpServletRequest req = ctx.getRequest();
 
-        for (int i : iArr) {
-            if (isNotGrease(i)) {
-                sj.add(String.valueOf(i));
-            }
-        }
+        SSLSession session = (SSLSession) req.getAttribute(JETTY_SSL_SESSION_ATTRIBUTE);
+        if (session == null) return null;
 
-        String value = sj.toString();
-        fingerprint.add(value);
+        return (ClientHelloView) session.getValue(CLIENT_HELLO_ATTRIBUTE);
     }
 
-    private int @NotNull [] extensionsTypes(@NotNull ClientHello clientHello) {
-        return clientHello.extensionTypes().stream().mapToInt(SSLExtensionType::value).toArray();
-    }
+    private @NotNull FingerprintEncoder encode(@NotNull ClientHelloView clientHello) {
+        FingerprintEncoder encoder = FingerprintEncoder.get();
 
-    private int @NotNull [] supportedGroups(@NotNull ClientHello clientHello) {
-        Object extension = clientHello.extension(SUPPORTED_GROUPS);
+        encoder.append(clientHello.clientVersion());
 
-        if (extension == null) return new int[0];
+        encoder.section(SECTION_DELIMITER);
+        for (int i = 0; i < clientHello.cipherSuitesCount(); i++)
+            write(encoder, clientHello.cipherSuite(i));
 
-        return ((SupportedGroups) extension).groups().stream().mapToInt(i -> i).toArray();
-    }
+        encoder.section(SECTION_DELIMITER);
+        for (int i = 0; i < clientHello.extensionsCount(); i++)
+            write(encoder, clientHello.extensionType(i));
 
-    private int @NotNull [] ecPointFormats(@NotNull ClientHello clientHello) {
-        Object extension = clientHello.extension(EC_POINT_FORMATS);
+        encoder.section(SECTION_DELIMITER);
+        for (int i = 0; i < clientHello.supportedGroupsCount(); i++)
+            write(encoder, clientHello.supportedGroup(i));
 
-        if (extension == null) return new int[0];
+        encoder.section(SECTION_DELIMITER);
+        for (int i = 0; i < clientHello.ecPointFormatsCount(); i++)
+            write(encoder, clientHello.ecPointFormat(i));
 
-        return ((ECPointFormats) extension).formats().stream().mapToInt(i -> i).toArray();
+        return encoder;
     }
 
-    private boolean isNotGrease(int i) {
-        return IntStream.of(GREASE_TABLE).noneMatch(x -> x == i);
+    private static void write(@NotNull FingerprintEncoder encoder, int value) {
+        if (!FingerprintEncoder.isGrease(value)) encoder.value(value, VALUE_DELIMITER);
     }
 
 }
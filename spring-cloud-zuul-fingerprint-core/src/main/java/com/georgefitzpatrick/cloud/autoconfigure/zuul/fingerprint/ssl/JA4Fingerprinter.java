@@ -0,0 +1,260 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.FingerprintEncoder;
+import com.netflix.zuul.context.RequestContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLSession;
+import javax.servlet.http.HttpServletRequest;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.CLIENT_HELLO_ATTRIBUTE;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.JETTY_SSL_SESSION_ATTRIBUTE;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLExtensionType.APPLICATION_LAYER_PROTOCOL_NEGOTIATION;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLExtensionType.SERVER_NAME;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBuffers.getUint8;
+
+/**
+ * JA4 (TCP only): the version, SNI flag, counts and ALPN of the ClientHello, followed by truncated SHA-256 hashes of
+ * its sorted cipher suites and of its sorted extensions with its signature algorithms. Unlike JA3 it is stable across
+ * clients that shuffle their extensions. Codes are sorted in per-thread primitive arrays, so nothing is boxed.
+ *
+ * @author George Fitzpatrick
+ */
+public final class JA4Fingerprinter implements Fingerprinter {
+
+    /* ----- Fields ----- */
+
+    private static final char PROTOCOL = 't';
+    private static final char SECTION_DELIMITER = '_';
+    private static final char VALUE_DELIMITER = ',';
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String EMPTY_HASH = "000000000000";
+    private static final int HASH_DIGITS = EMPTY_HASH.length();
+    private static final int CODE_DIGITS = 4;
+    private static final int MAXIMUM_COUNT = 99;
+    private static final int DEFAULT_CODES_CAPACITY = 64;
+
+    private final ThreadLocal<Scratch> scratches;
+
+    /* ----- Constructors ----- */
+
+    public JA4Fingerprinter() {
+        // fail on construction rather than on the first request
+        newDigest();
+        this.scratches = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    /* ----- Methods ----- */
+
+    private static @NotNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public @Nullable String fingerprint(@NotNull RequestContext ctx) {
+        HttpServletRequest req = ctx.getRequest();
+
+        SSLSession session = (SSLSession) req.getAttribute(JETTY_SSL_SESSION_ATTRIBUTE);
+        if (session == null) return null;
+
+        ClientHelloView clientHello = (ClientHelloView) session.getValue(CLIENT_HELLO_ATTRIBUTE);
+        if (clientHello == null) return null;
+
+        return fingerprint(clientHello);
+    }
+
+    public @NotNull String fingerprint(@NotNull ClientHelloView clientHello) {
+        FingerprintEncoder encoder = FingerprintEncoder.get();
+        Scratch scratch = scratches.get();
+
+        int[] ciphers = scratch.ciphers(clientHello.cipherSuitesCount());
+        int ciphersCount = 0;
+        for (int i = 0; i < clientHello.cipherSuitesCount(); i++) {
+            int cipher = clientHello.cipherSuite(i);
+            if (!FingerprintEncoder.isGrease(cipher)) ciphers[ciphersCount++] = cipher;
+        }
+
+        // the count includes server_name and alpn, the hash does not
+        int[] extensions = scratch.extensions(clientHello.extensionsCount());
+        int extensionsCount = 0;
+        int hashedCount = 0;
+        for (int i = 0; i < clientHello.extensionsCount(); i++) {
+            int type = clientHello.extensionType(i);
+            if (FingerprintEncoder.isGrease(type)) continue;
+
+            extensionsCount++;
+            if (type != SERVER_NAME.value() && type != APPLICATION_LAYER_PROTOCOL_NEGOTIATION.value())
+                extensions[hashedCount++] = type;
+        }
+
+        Arrays.sort(ciphers, 0, ciphersCount);
+        Arrays.sort(extensions, 0, hashedCount);
+
+        encoder.append(PROTOCOL);
+        encoder.append(version(clientHello));
+        encoder.append(clientHello.indexOfExtension(SERVER_NAME.value()) >= 0 ? 'd' : 'i');
+        appendCount(encoder, ciphersCount);
+        appendCount(encoder, extensionsCount);
+        appendApplicationProtocol(encoder, clientHello);
+
+        encoder.section(SECTION_DELIMITER);
+        int from = encoder.length();
+        for (int i = 0; i < ciphersCount; i++) encoder.hexValue(ciphers[i], CODE_DIGITS, VALUE_DELIMITER);
+        appendHash(encoder, from, ciphersCount, scratch.digest);
+
+        encoder.section(SECTION_DELIMITER);
+        from = encoder.length();
+        for (int i = 0; i < hashedCount; i++) encoder.hexValue(extensions[i], CODE_DIGITS, VALUE_DELIMITER);
+
+        // signature algorithms stay in the order the client sent them
+        if (hashedCount > 0 && hasSignatureAlgorithms(clientHello)) {
+            encoder.section(SECTION_DELIMITER);
+            for (int i = 0; i < clientHello.signatureAlgorithmsCount(); i++) {
+                int algorithm = clientHello.signatureAlgorithm(i);
+                if (!FingerprintEncoder.isGrease(algorithm))
+                    encoder.hexValue(algorithm, CODE_DIGITS, VALUE_DELIMITER);
+            }
+        }
+        appendHash(encoder, from, hashedCount, scratch.digest);
+
+        return encoder.toString();
+    }
+
+    /*
+     * The highest version offered in supported_versions, which TLS 1.3 clients use in place of the legacy field.
+     */
+    private static @NotNull String version(@NotNull ClientHelloView clientHello) {
+        int version = 0;
+        for (int i = 0; i < clientHello.supportedVersionsCount(); i++) {
+            int supportedVersion = clientHello.supportedVersion(i);
+            if (!FingerprintEncoder.isGrease(supportedVersion)) version = Math.max(version, supportedVersion);
+        }
+
+        if (version == 0) version = clientHello.clientVersion();
+
+        switch (SSLProtocol.valueOf(version)) {
+            case TLS_v1_3:
+                return "13";
+            case TLS_v1_2:
+                return "12";
+            case TLS_v1_1:
+                return "11";
+            case TLS_v1_0:
+                return "10";
+            case SSL_V3_0:
+                return "s3";
+            case SSL_v2_0:
+                return "s2";
+            case DTLS_1_0:
+                return "d1";
+            case DTLS_1_1:
+                return "d2";
+            default:
+                return "00";
+        }
+    }
+
+    private static void appendCount(@NotNull FingerprintEncoder encoder, int count) {
+        int capped = Math.min(count, MAXIMUM_COUNT);
+        encoder.append((char) ('0' + capped / 10)).append((char) ('0' + capped % 10));
+    }
+
+    /*
+     * The first and last characters of the first protocol, or the outer hex digits of its bytes when either is not
+     * alphanumeric.
+     */
+    private static void appendApplicationProtocol(@NotNull FingerprintEncoder encoder,
+                                                  @NotNull ClientHelloView clientHello) {
+        int length = clientHello.applicationProtocolLength();
+        if (length == 0) {
+            encoder.append('0').append('0');
+            return;
+        }
+
+        ByteBuffer src = clientHello.buffer();
+        int first = getUint8(src, clientHello.applicationProtocolOffset());
+        int last = getUint8(src, clientHello.applicationProtocolOffset() + length - 1);
+
+        if (isAlphanumeric(first) && isAlphanumeric(last)) encoder.append((char) first).append((char) last);
+        else encoder.appendHex(first >>> 4, 1).appendHex(last, 1);
+    }
+
+    private static boolean isAlphanumeric(int c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean hasSignatureAlgorithms(@NotNull ClientHelloView clientHello) {
+        for (int i = 0; i < clientHello.signatureAlgorithmsCount(); i++) {
+            if (!FingerprintEncoder.isGrease(clientHello.signatureAlgorithm(i))) return true;
+        }
+
+        return false;
+    }
+
+    private static void appendHash(@NotNull FingerprintEncoder encoder, int from, int count,
+                                   @NotNull MessageDigest digest) {
+        if (count > 0) encoder.digest(from, digest, HASH_DIGITS);
+        else encoder.append(EMPTY_HASH);
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class Scratch {
+
+        /* ----- Fields ----- */
+
+        private final MessageDigest digest;
+        private int[] ciphers;
+        private int[] extensions;
+
+        /* ----- Constructors ----- */
+
+        private Scratch() {
+            this.digest = newDigest();
+            this.ciphers = new int[DEFAULT_CODES_CAPACITY];
+            this.extensions = new int[DEFAULT_CODES_CAPACITY];
+        }
+
+        /* ----- Methods ----- */
+
+        private int @NotNull [] ciphers(int count) {
+            if (ciphers.length < count) ciphers = new int[Math.max(count, ciphers.length * 2)];
+            return ciphers;
+        }
+
+        private int @NotNull [] extensions(int count) {
+            if (extensions.length < count) extensions = new int[Math.max(count, extensions.length * 2)];
+            return extensions;
+        }
+
+    }
+
+}
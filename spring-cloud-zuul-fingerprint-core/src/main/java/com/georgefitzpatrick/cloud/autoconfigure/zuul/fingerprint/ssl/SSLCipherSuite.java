@@ -16,10 +16,9 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.EnumTables;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
-
 /**
  * @author George Fitzpatrick
  */
@@ -694,6 +693,8 @@ public enum SSLCipherSuite {
 
     /* ----- Fields ----- */
 
+    private static final SSLCipherSuite[] TABLE = EnumTables.index(values(), SSLCipherSuite::value, EnumTables.UINT16_CODES, UNASSIGNED);
+
     private final int value;
 
     /* ----- Constructors ----- */
@@ -705,10 +706,7 @@ public enum SSLCipherSuite {
     /* ----- Methods ----- */
 
     public static @NotNull SSLCipherSuite valueOf(int i) {
-        return Arrays.stream(values())
-                .filter(suite -> suite.value == i)
-                .findFirst()
-                .orElse(UNASSIGNED);
+        return EnumTables.lookup(TABLE, i, UNASSIGNED);
     }
 
     public int value() {
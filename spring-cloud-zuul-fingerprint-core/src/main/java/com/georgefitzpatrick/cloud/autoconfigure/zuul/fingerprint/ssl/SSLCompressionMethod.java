@@ -16,10 +16,9 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.EnumTables;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
-
 /**
  * @author George Fitzpatrick
  */
@@ -70,6 +69,8 @@ public enum SSLCompressionMethod {
 
     /* ----- Fields ----- */
 
+    private static final SSLCompressionMethod[] TABLE = EnumTables.index(values(), SSLCompressionMethod::value, EnumTables.UINT8_CODES, UNASSIGNED);
+
     private final int value;
 
     /* ----- Constructors ----- */
@@ -81,10 +82,7 @@ public enum SSLCompressionMethod {
     /* ----- Methods ----- */
 
     public static @NotNull SSLCompressionMethod valueOf(int i) {
-        return Arrays.stream(values())
-                .filter(method -> method.value == i)
-                .findFirst()
-                .orElse(UNASSIGNED);
+        return EnumTables.lookup(TABLE, i, UNASSIGNED);
     }
 
     public int value() {
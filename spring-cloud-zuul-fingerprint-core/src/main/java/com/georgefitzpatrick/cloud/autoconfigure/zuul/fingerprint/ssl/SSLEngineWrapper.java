@@ -16,15 +16,18 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHello;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus.CorpusRecorder;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics.FingerprintMetrics;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.net.ssl.*;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.BiFunction;
 
-import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.CLIENT_HELLO_ATTRIBUTE;
-
 /**
  * @author George Fitzpatrick
  */
@@ -34,15 +37,39 @@ public final class SSLEngineWrapper extends SSLEngine {
 
     private final SSLEngine delegate;
 
-    private boolean finished;
-    private ClientHello clientHello;
+    private final ClientHelloCapture capture;
+
+    private final HandshakeFilter filter;
+    private boolean filtered;
+
+    private final CorpusRecorder recorder;
+    private boolean recorded;
 
     /* ----- Constructors ----- */
 
     public SSLEngineWrapper(SSLEngine delegate) {
+        this(delegate, null);
+    }
+
+    public SSLEngineWrapper(SSLEngine delegate, @Nullable ByteBufferPool bufferPool) {
+        this(delegate, bufferPool, null);
+    }
+
+    public SSLEngineWrapper(SSLEngine delegate, @Nullable ByteBufferPool bufferPool, @Nullable HandshakeFilter filter) {
+        this(delegate, bufferPool, filter, FingerprintMetrics.NOOP);
+    }
+
+    public SSLEngineWrapper(SSLEngine delegate, @Nullable ByteBufferPool bufferPool, @Nullable HandshakeFilter filter,
+                            @NotNull FingerprintMetrics metrics) {
+        this(delegate, bufferPool, filter, metrics, null);
+    }
+
+    public SSLEngineWrapper(SSLEngine delegate, @Nullable ByteBufferPool bufferPool, @Nullable HandshakeFilter filter,
+                            @NotNull FingerprintMetrics metrics, @Nullable CorpusRecorder recorder) {
         this.delegate = delegate;
-        this.finished = false;
-        this.clientHello = null;
+        this.capture = new ClientHelloCapture(bufferPool, metrics);
+        this.filter = filter;
+        this.recorder = recorder;
     }
 
     /* ----- Methods ----- */
@@ -73,7 +100,9 @@ public final class SSLEngineWrapper extends SSLEngine {
 
     @Override
     public SSLEngineResult wrap(final ByteBuffer[] srcs, final int offset, final int length, final ByteBuffer dst) throws SSLException {
-        return delegate.wrap(srcs, offset, length, dst);
+        SSLEngineResult result = delegate.wrap(srcs, offset, length, dst);
+        if (!capture.isDone()) publish(result);
+        return result;
     }
 
     @Override
@@ -92,27 +121,64 @@ public final class SSLEngineWrapper extends SSLEngine {
 
     @Override
     public SSLEngineResult unwrap(final ByteBuffer src, final ByteBuffer[] dsts, final int offset, final int length) throws SSLException {
-        if (!finished) {
-            if (clientHello != null) {
-                SSLSession session = delegate.getHandshakeSession();
-                if (session != null) {
-                    session.putValue(CLIENT_HELLO_ATTRIBUTE, clientHello);
-                    finished = true;
-                }
-            } else {
-                SSLEngineResult.HandshakeStatus status = delegate.getHandshakeStatus();
-                if (SSLEngineResult.HandshakeStatus.FINISHED == status) {
-                    finished = true;
-                } else {
-                    SSLRecord record = SSLRecord.parse(src);
-                    if (record.handshake() instanceof ClientHello) {
-                        clientHello = (ClientHello) record.handshake();
-                    }
-                }
-            }
+        if (capture.isDone()) return delegate.unwrap(src, dsts, offset, length);
+
+        int pos = src.position();
+        SSLEngineResult result;
+        try {
+            result = delegate.unwrap(src, dsts, offset, length);
+        } catch (SSLException e) {
+            capture.close();
+            throw e;
         }
 
-        return delegate.unwrap(src, dsts, offset, length);
+        // only the bytes the engine consumed are fed, so retried underflows are never seen twice
+        capture.feed(src, pos, pos + result.bytesConsumed());
+        record();
+        filter();
+        publish(result);
+
+        return result;
+    }
+
+    /*
+     * The engine leaves the ClientHello to a delegated task, which has not run yet, so a refused handshake is closed
+     * before any key exchange work is done.
+     */
+    private void filter() throws SSLHandshakeException {
+        if (filter == null || filtered) return;
+
+        ClientHelloView clientHello = capture.clientHello();
+        if (clientHello == null) return;
+
+        filtered = true;
+        if (!filter.accept(clientHello)) {
+            capture.close();
+            throw new SSLHandshakeException("ClientHello refused by " + filter.getClass().getSimpleName());
+        }
+    }
+
+    /*
+     * Recorded before the filter, so refused handshakes are in the corpus too.
+     */
+    private void record() {
+        if (recorder == null || recorded) return;
+
+        ClientHelloView clientHello = capture.clientHello();
+        if (clientHello == null) return;
+
+        recorded = true;
+        recorder.clientHello(clientHello.buffer());
+    }
+
+    private void publish(@NotNull SSLEngineResult result) {
+        boolean finished = result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED;
+
+        SSLSession session = delegate.getHandshakeSession();
+        if (session == null && finished) session = delegate.getSession();
+        capture.publish(session);
+
+        if (finished) capture.close();
     }
 
     @Override
@@ -122,6 +188,7 @@ public final class SSLEngineWrapper extends SSLEngine {
 
     @Override
     public void closeInbound() throws SSLException {
+        capture.close();
         delegate.closeInbound();
     }
 
@@ -132,6 +199,7 @@ public final class SSLEngineWrapper extends SSLEngine {
 
     @Override
     public void closeOutbound() {
+        capture.close();
         delegate.closeOutbound();
     }
 
@@ -16,14 +16,12 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension.ECPointFormats;
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension.ServerName;
-import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension.SupportedGroups;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension.*;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBufferParser;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.EnumTables;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 
 /**
  * @author George Fitzpatrick
@@ -327,10 +325,10 @@ public enum SSLExtensionType {
     SUPPORTED_GROUPS(0xA, SupportedGroups.PARSER),
     EC_POINT_FORMATS(0xB, ECPointFormats.PARSER),
     SRP(0xC, ByteBuffer::array),
-    SIGNATURE_ALGORITHMS(0xD, ByteBuffer::array),
+    SIGNATURE_ALGORITHMS(0xD, SignatureAlgorithms.PARSER),
     USE_SRTP(0xE, ByteBuffer::array),
     HEARTBEAT(0xF, ByteBuffer::array),
-    APPLICATION_LAYER_PROTOCOL_NEGOTIATION(0x10, ByteBuffer::array),
+    APPLICATION_LAYER_PROTOCOL_NEGOTIATION(0x10, ApplicationLayerProtocolNegotiation.PARSER),
     STATUS_REQUEST_V2(0x11, ByteBuffer::array),
     SIGNED_CERTIFICATE_TIMESTAMP(0x12, ByteBuffer::array),
     CLIENT_CERTIFICATE_TYPE(0x13, ByteBuffer::array),
@@ -356,13 +354,13 @@ public enum SSLExtensionType {
     SUPPORTED_EKT_CIPHERS(0x27, ByteBuffer::array),
     PRE_SHARED_KEY(0x29, ByteBuffer::array),
     EARLY_DATA(0x2A, ByteBuffer::array),
-    SUPPORTED_VERSIONS(0x2B, ByteBuffer::array),
+    SUPPORTED_VERSIONS(0x2B, SupportedVersions.PARSER),
     COOKIE(0x2C, ByteBuffer::array),
     PSK_KEY_EXCHANGE_MODES(0x2D, ByteBuffer::array),
     CERTIFICATE_AUTHORITIES(0x2F, ByteBuffer::array),
     OID_FILTERS(0x30, ByteBuffer::array),
     POST_HANDSHAKE_AUTH(0x31, ByteBuffer::array),
-    SIGNATURE_ALGORITHMS_CERT(0x32, ByteBuffer::array),
+    SIGNATURE_ALGORITHMS_CERT(0x32, SignatureAlgorithms.PARSER),
     KEY_SHARE(0x33, ByteBuffer::array),
     TRANSPARENCY_INFO(0x34, ByteBuffer::array),
     CONNECTION_ID(0x36, ByteBuffer::array),
@@ -375,6 +373,8 @@ public enum SSLExtensionType {
 
     /* ----- Fields ----- */
 
+    private static final SSLExtensionType[] TABLE = EnumTables.index(values(), SSLExtensionType::value, EnumTables.UINT16_CODES, UNASSIGNED);
+
     private final int value;
     private final ByteBufferParser<?> parser;
 
@@ -388,10 +388,7 @@ public enum SSLExtensionType {
     /* ----- Methods ----- */
 
     public static @NotNull SSLExtensionType valueOf(int i) {
-        return Arrays.stream(values())
-                .filter(type -> type.value == i)
-                .findFirst()
-                .orElse(UNASSIGNED);
+        return EnumTables.lookup(TABLE, i, UNASSIGNED);
     }
 
     public int value() {
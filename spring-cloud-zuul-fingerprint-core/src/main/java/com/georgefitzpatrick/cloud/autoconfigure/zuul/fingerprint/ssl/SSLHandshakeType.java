@@ -18,6 +18,7 @@ package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHello;
 import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBufferParser;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.EnumTables;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.ByteBuffer;
@@ -82,6 +83,8 @@ public enum SSLHandshakeType {
 
     /* ----- Fields ----- */
 
+    private static final SSLHandshakeType[][] TABLE = table();
+
     private final SSLRecordType recordType;
     private final int value;
     private final ByteBufferParser<?> parser;
@@ -96,12 +99,23 @@ public enum SSLHandshakeType {
 
     /* ----- Methods ----- */
 
+    private static SSLHandshakeType @NotNull [][] table() {
+        SSLRecordType[] recordTypes = SSLRecordType.values();
+        SSLHandshakeType[][] table = new SSLHandshakeType[recordTypes.length][];
+
+        for (SSLRecordType recordType : recordTypes) {
+            SSLHandshakeType[] constants = Arrays.stream(values())
+                    .filter(handshakeType -> handshakeType.recordType == recordType)
+                    .toArray(SSLHandshakeType[]::new);
+            table[recordType.ordinal()] = EnumTables.index(constants, SSLHandshakeType::value, EnumTables.UINT8_CODES, UNASSIGNED);
+        }
+
+        return table;
+    }
+
     public static @NotNull SSLHandshakeType valueOf(SSLRecordType recordType, int value) {
-        return Arrays.stream(values())
-                .filter(handshakeType -> handshakeType.recordType == recordType)
-                .filter(handshakeType -> handshakeType.value == value)
-                .findFirst()
-                .orElse(UNASSIGNED);
+        if (recordType == null) return UNASSIGNED;
+        return EnumTables.lookup(TABLE[recordType.ordinal()], value, UNASSIGNED);
     }
 
     public SSLRecordType recordType() {
@@ -16,10 +16,9 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.EnumTables;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
-
 /**
  * @author George Fitzpatrick
  */
@@ -46,6 +45,8 @@ public enum SSLProtocol {
 
     /* ----- Fields ----- */
 
+    private static final SSLProtocol[] TABLE = EnumTables.index(values(), SSLProtocol::value, EnumTables.UINT16_CODES, UNASSIGNED);
+
     private final int value;
 
     /* ----- Constructors ----- */
@@ -57,10 +58,7 @@ public enum SSLProtocol {
     /* ----- Methods ----- */
 
     public static @NotNull SSLProtocol valueOf(int i) {
-        return Arrays.stream(values())
-                .filter(protocol -> protocol.value == i)
-                .findFirst()
-                .orElse(UNASSIGNED);
+        return EnumTables.lookup(TABLE, i, UNASSIGNED);
     }
 
     public int value() {
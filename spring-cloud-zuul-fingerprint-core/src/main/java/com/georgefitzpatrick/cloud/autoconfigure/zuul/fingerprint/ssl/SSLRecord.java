@@ -34,6 +34,9 @@ public final class SSLRecord {
 
     /* ----- Fields ----- */
 
+    public static final int HEADER_LENGTH = 5;
+    public static final int HANDSHAKE_HEADER_LENGTH = 4;
+
     private static final int MIN_PACKET_LENGTH = 4;
 
     private static final Logger log = LoggerFactory.getLogger(SSLRecord.class);
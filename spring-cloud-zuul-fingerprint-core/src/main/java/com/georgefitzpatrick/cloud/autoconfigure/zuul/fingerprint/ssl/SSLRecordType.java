@@ -16,10 +16,9 @@
 
 package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
 
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.EnumTables;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
-
 /**
  * @author George Fitzpatrick
  */
@@ -38,6 +37,8 @@ public enum SSLRecordType {
 
     /* ----- Fields ----- */
 
+    private static final SSLRecordType[] TABLE = EnumTables.index(values(), SSLRecordType::value, EnumTables.UINT8_CODES, UNASSIGNED);
+
     private final int value;
 
     /* ----- Constructors ----- */
@@ -49,10 +50,7 @@ public enum SSLRecordType {
     /* ----- Methods ----- */
 
     public static @NotNull SSLRecordType valueOf(int value) {
-        return Arrays.stream(values())
-                .filter(type -> type.value == value)
-                .findFirst()
-                .orElse(UNASSIGNED);
+        return EnumTables.lookup(TABLE, value, UNASSIGNED);
     }
 
     public int value() {
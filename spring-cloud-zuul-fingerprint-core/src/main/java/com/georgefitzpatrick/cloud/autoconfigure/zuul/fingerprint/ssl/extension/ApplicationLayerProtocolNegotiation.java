@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBufferParser;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBuffers.*;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes.UINT16_LENGTH;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * @author George Fitzpatrick
+ */
+public final class ApplicationLayerProtocolNegotiation {
+
+    /* ----- Fields ----- */
+
+    public static final ByteBufferParser<ApplicationLayerProtocolNegotiation> PARSER = new Parser();
+
+    private final List<String> protocols;
+
+    /* ----- Constructors ----- */
+
+    public ApplicationLayerProtocolNegotiation(List<String> protocols) {
+        this.protocols = protocols;
+    }
+
+    /* ----- Methods ----- */
+
+    public List<String> protocols() {
+        return protocols;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", getClass().getSimpleName() + "[", "]")
+                .add("protocols=" + protocols)
+                .toString();
+    }
+
+    /* ----- Classes ----- */
+
+    public static final class Parser implements ByteBufferParser<ApplicationLayerProtocolNegotiation> {
+
+        /* ----- Constructors ----- */
+
+        private Parser() {
+
+        }
+
+        /* ----- Methods ----- */
+
+        @Override
+        public @NotNull ApplicationLayerProtocolNegotiation parse(@NotNull ByteBuffer src) {
+            List<String> protocols = new LinkedList<>();
+
+            // ignore length
+            offset(src, UINT16_LENGTH);
+
+            while (src.hasRemaining()) {
+                int protocolLength = getUint8(src);
+                String protocol = getString(src, protocolLength, US_ASCII);
+                protocols.add(protocol);
+            }
+
+            return new ApplicationLayerProtocolNegotiation(protocols);
+        }
+
+    }
+
+}
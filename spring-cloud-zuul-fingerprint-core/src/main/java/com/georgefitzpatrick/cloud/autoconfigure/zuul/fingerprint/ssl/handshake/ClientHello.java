@@ -33,6 +33,9 @@ import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.By
 import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes.UINT16_LENGTH;
 
 /**
+ * Extensions are kept in wire order as raw codes with offset and length pairs into the extensions block;
+ * the parsed {@link SSLExtensionType} map is only built when asked for.
+ *
  * @author George Fitzpatrick
  */
 public final class ClientHello {
@@ -45,21 +48,42 @@ public final class ClientHello {
     private final SSLProtocol clientVersion;
     private final byte[] clientRandom;
     private final byte[] sessionId;
-    private final SSLCipherSuite[] cipherSuites;
+    private final int[] cipherSuites;
     private final SSLCompressionMethod[] compressionMethods;
-    private final Map<SSLExtensionType, Object> extensions;
+    private final byte[] extensionsData;
+    private final int[] extensionCodes;
+    private final int[] extensionOffsets;
+    private final int[] extensionLengths;
+
+    private volatile Map<SSLExtensionType, Object> extensions;
 
     /* ----- Constructors ----- */
 
     public ClientHello(SSLProtocol clientVersion, byte @NotNull [] clientRandom,
-                       byte @NotNull [] sessionId, SSLCipherSuite @NotNull [] cipherSuites,
-                       SSLCompressionMethod @NotNull [] compressionMethods, Map<SSLExtensionType, Object> extensions) {
+                       byte @NotNull [] sessionId, int @NotNull [] cipherSuites,
+                       SSLCompressionMethod @NotNull [] compressionMethods, byte @NotNull [] extensionsData,
+                       int @NotNull [] extensionCodes, int @NotNull [] extensionOffsets, int @NotNull [] extensionLengths) {
+        if (extensionCodes.length != extensionOffsets.length || extensionCodes.length != extensionLengths.length)
+            throw new IllegalArgumentException("extension codes, offsets and lengths must have the same length");
+
+        for (int i = 0; i < extensionCodes.length; i++) {
+            if (extensionOffsets[i] < 0 || extensionLengths[i] < 0
+                    || extensionOffsets[i] + extensionLengths[i] > extensionsData.length) {
+                String msg = String.format("extension %s (offset %s, length %s) exceeds extensions data (%s)",
+                        i, extensionOffsets[i], extensionLengths[i], extensionsData.length);
+                throw new IllegalArgumentException(msg);
+            }
+        }
+
         this.clientVersion = clientVersion;
         this.clientRandom = clientRandom.clone();
         this.sessionId = sessionId.clone();
         this.cipherSuites = cipherSuites.clone();
         this.compressionMethods = compressionMethods.clone();
-        this.extensions = extensions;
+        this.extensionsData = extensionsData.clone();
+        this.extensionCodes = extensionCodes.clone();
+        this.extensionOffsets = extensionOffsets.clone();
+        this.extensionLengths = extensionLengths.clone();
     }
 
     /* ----- Methods ----- */
@@ -76,24 +100,80 @@ public final class ClientHello {
         return sessionId;
     }
 
-    public SSLCipherSuite @NotNull [] cipherSuites() {
+    public int @NotNull [] cipherSuiteCodes() {
         return cipherSuites.clone();
     }
 
+    public SSLCipherSuite @NotNull [] cipherSuites() {
+        SSLCipherSuite[] suites = new SSLCipherSuite[cipherSuites.length];
+        for (int i = 0; i < cipherSuites.length; i++) suites[i] = SSLCipherSuite.valueOf(cipherSuites[i]);
+        return suites;
+    }
+
     public SSLCompressionMethod @NotNull [] compressionMethods() {
         return compressionMethods.clone();
     }
 
+    public int extensionsCount() {
+        return extensionCodes.length;
+    }
+
+    public int extensionCode(int index) {
+        return extensionCodes[index];
+    }
+
+    public int @NotNull [] extensionCodes() {
+        return extensionCodes.clone();
+    }
+
+    public int extensionOffset(int index) {
+        return extensionOffsets[index];
+    }
+
+    public int extensionLength(int index) {
+        return extensionLengths[index];
+    }
+
+    public @NotNull ByteBuffer extensionData(int index) {
+        return ByteBuffer.wrap(extensionsData, extensionOffsets[index], extensionLengths[index])
+                .slice()
+                .asReadOnlyBuffer();
+    }
+
     public @NotNull Set<SSLExtensionType> extensionTypes() {
-        return extensions.keySet();
+        return extensionMap().keySet();
     }
 
     public @NotNull Collection<Object> extensions() {
-        return extensions.values();
+        return extensionMap().values();
     }
 
     public @Nullable Object extension(@NotNull SSLExtensionType type) {
-        return extensions.get(type);
+        return extensionMap().get(type);
+    }
+
+    /*
+     * Lazily parsed view in wire order. Only the first occurrence of a type is kept and every unknown
+     * code collapses into UNASSIGNED, so fingerprints must be built from the raw codes instead.
+     */
+    public @NotNull Map<SSLExtensionType, Object> extensionMap() {
+        Map<SSLExtensionType, Object> extensions = this.extensions;
+        if (extensions == null) this.extensions = extensions = parseExtensions();
+        return extensions;
+    }
+
+    private @NotNull Map<SSLExtensionType, Object> parseExtensions() {
+        Map<SSLExtensionType, Object> extensions = new LinkedHashMap<>();
+        for (int i = 0; i < extensionCodes.length; i++) {
+            SSLExtensionType type = SSLExtensionType.valueOf(extensionCodes[i]);
+            if (extensions.containsKey(type)) continue;
+
+            int from = extensionOffsets[i];
+            ByteBuffer src = ByteBuffer.wrap(Arrays.copyOfRange(extensionsData, from, from + extensionLengths[i]));
+            extensions.put(type, type.parser().parse(src));
+        }
+
+        return Collections.unmodifiableMap(extensions);
     }
 
     @Override
@@ -104,7 +184,7 @@ public final class ClientHello {
                 .add("sessionId=" + Bytes.toString(sessionId))
                 .add("cipherSuites=" + Arrays.toString(cipherSuites))
                 .add("compressionMethods=" + Arrays.toString(compressionMethods))
-                .add("extensions=" + extensions)
+                .add("extensionCodes=" + Arrays.toString(extensionCodes))
                 .toString();
     }
 
@@ -115,6 +195,7 @@ public final class ClientHello {
         /* ----- Fields ----- */
 
         private static final Logger log = LoggerFactory.getLogger(Parser.class);
+        private static final int EXTENSION_HEADER_LENGTH = UINT16_LENGTH + UINT16_LENGTH;
 
         /* ----- Constructors ----- */
 
@@ -126,54 +207,56 @@ public final class ClientHello {
 
         @Override
         public @NotNull ClientHello parse(@NotNull ByteBuffer src) {
+            // the arguments are formatted eagerly, so they are only built when they would be logged
+            boolean debug = log.isDebugEnabled();
+
             int clientVersionCode = getUint16(src);
             SSLProtocol clientVersion = SSLProtocol.valueOf(clientVersionCode);
-            log.debug("{}", clientVersion);
+            if (debug) log.debug("{}", clientVersion);
 
             byte[] clientRandom = getBytes(src, CLIENT_RANDOM_LENGTH);
-            log.debug("clientRandom: {}", Bytes.toString(clientRandom));
+            if (debug) log.debug("clientRandom: {}", Bytes.toString(clientRandom));
 
-            int sessionIdLength = src.get();
+            int sessionIdLength = getUint8(src);
             byte[] sessionId = getBytes(src, sessionIdLength);
-            log.debug("sessionId: {}", Bytes.toString(sessionId));
+            if (debug) log.debug("sessionId: {}", Bytes.toString(sessionId));
 
             int cipherSuitesLength = getUint16(src);
-            int[] cipherSuiteCodes = getUint16Array(src, cipherSuitesLength);
-
-            SSLCipherSuite[] cipherSuites = new SSLCipherSuite[cipherSuiteCodes.length];
-            for (int i = 0; i < cipherSuiteCodes.length; i++)
-                cipherSuites[i] = SSLCipherSuite.valueOf(cipherSuiteCodes[i]);
-            log.debug("cipherSuites: {}", Arrays.toString(cipherSuites));
+            int[] cipherSuites = getUint16Array(src, cipherSuitesLength);
+            if (debug) log.debug("cipherSuites: {}", Arrays.toString(cipherSuites));
 
-            int compressionMethodsLength = src.get();
+            int compressionMethodsLength = getUint8(src);
             int[] compressionMethodCodes = getUint8Array(src, compressionMethodsLength);
 
             SSLCompressionMethod[] compressionMethods = new SSLCompressionMethod[compressionMethodCodes.length];
             for (int i = 0; i < compressionMethodCodes.length; i++)
                 compressionMethods[i] = SSLCompressionMethod.valueOf(compressionMethodCodes[i]);
-            log.debug("compressionMethods: {}", Arrays.toString(compressionMethods));
-
-            // ignore extensions length
-            offset(src, UINT16_LENGTH);
-
-            Map<SSLExtensionType, Object> extensions = new HashMap<>();
-            while (src.hasRemaining()) {
-                int extensionTypeCode = getUint16(src);
-                SSLExtensionType extensionType = SSLExtensionType.valueOf(extensionTypeCode);
-
-                int extensionLength = getUint16(src);
-
-                ByteBuffer extensionSrc = getBuffer(src, extensionLength);
-                Object extension = extensionType.parser().parse(extensionSrc);
-
-                log.debug("{} ({}): {}", extensionType, extensionTypeCode, extension);
-
-                extensions.put(extensionType, extension);
+            if (debug) log.debug("compressionMethods: {}", Arrays.toString(compressionMethods));
+
+            // extensions are optional
+            int extensionsLength = src.hasRemaining() ? getUint16(src) : 0;
+            byte[] extensionsData = getBytes(src, extensionsLength);
+
+            ByteBuffer extensionsSrc = ByteBuffer.wrap(extensionsData);
+            int capacity = extensionsLength / EXTENSION_HEADER_LENGTH;
+            int[] codes = new int[capacity];
+            int[] offsets = new int[capacity];
+            int[] lengths = new int[capacity];
+
+            int count = 0;
+            while (extensionsSrc.remaining() >= EXTENSION_HEADER_LENGTH) {
+                codes[count] = getUint16(extensionsSrc);
+                lengths[count] = getUint16(extensionsSrc);
+                offsets[count] = extensionsSrc.position();
+                offset(extensionsSrc, lengths[count]);
+                if (debug) log.debug("extension {} ({} bytes)", codes[count], lengths[count]);
+                count++;
             }
 
-            return new ClientHello(clientVersion, clientRandom, sessionId, cipherSuites, compressionMethods, extensions);
+            return new ClientHello(clientVersion, clientRandom, sessionId, cipherSuites, compressionMethods, extensionsData,
+                    Arrays.copyOf(codes, count), Arrays.copyOf(offsets, count), Arrays.copyOf(lengths, count));
         }
 
     }
 
-}
\ No newline at end of file
+}
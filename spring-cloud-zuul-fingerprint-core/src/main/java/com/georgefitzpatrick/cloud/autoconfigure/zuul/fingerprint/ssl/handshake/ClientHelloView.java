@@ -0,0 +1,386 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.StringJoiner;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLExtensionType.*;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBuffers.getUint16;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.ByteBuffers.getUint8;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes.UINT16_LENGTH;
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes.UINT8_LENGTH;
+
+/**
+ * Flyweight over a ClientHello body: offsets are indexed once by {@link #wrap(ByteBuffer)} and read in place.
+ *
+ * @author George Fitzpatrick
+ */
+public final class ClientHelloView {
+
+    /* ----- Fields ----- */
+
+    private static final int DEFAULT_EXTENSIONS_CAPACITY = 32;
+    private static final int EXTENSION_HEADER_LENGTH = UINT16_LENGTH + UINT16_LENGTH;
+
+    private ByteBuffer src;
+
+    private int clientVersion;
+    private int clientRandomOffset;
+    private int sessionIdOffset;
+    private int sessionIdLength;
+    private int cipherSuitesOffset;
+    private int cipherSuitesCount;
+    private int compressionMethodsOffset;
+    private int compressionMethodsCount;
+
+    private int[] extensionOffsets;
+    private int extensionsCount;
+
+    private int supportedGroupsOffset;
+    private int supportedGroupsCount;
+    private int ecPointFormatsOffset;
+    private int ecPointFormatsCount;
+    private int signatureAlgorithmsOffset;
+    private int signatureAlgorithmsCount;
+    private int supportedVersionsOffset;
+    private int supportedVersionsCount;
+    private int applicationProtocolOffset;
+    private int applicationProtocolLength;
+
+    /* ----- Constructors ----- */
+
+    public ClientHelloView() {
+        this.extensionOffsets = new int[DEFAULT_EXTENSIONS_CAPACITY];
+    }
+
+    /* ----- Methods ----- */
+
+    public @NotNull ClientHelloView wrap(@NotNull ByteBuffer src) {
+        int pos = src.position();
+        int end = src.limit();
+
+        this.src = src;
+
+        clientVersion = getUint16(src, require(pos, UINT16_LENGTH, end));
+        pos += UINT16_LENGTH;
+
+        clientRandomOffset = require(pos, ClientHello.CLIENT_RANDOM_LENGTH, end);
+        pos += ClientHello.CLIENT_RANDOM_LENGTH;
+
+        sessionIdLength = getUint8(src, require(pos, UINT8_LENGTH, end));
+        sessionIdOffset = require(pos + UINT8_LENGTH, sessionIdLength, end);
+        pos = sessionIdOffset + sessionIdLength;
+
+        int cipherSuitesLength = getUint16(src, require(pos, UINT16_LENGTH, end));
+        cipherSuitesOffset = require(pos + UINT16_LENGTH, cipherSuitesLength, end);
+        cipherSuitesCount = cipherSuitesLength / UINT16_LENGTH;
+        pos = cipherSuitesOffset + cipherSuitesLength;
+
+        compressionMethodsCount = getUint8(src, require(pos, UINT8_LENGTH, end));
+        compressionMethodsOffset = require(pos + UINT8_LENGTH, compressionMethodsCount, end);
+        pos = compressionMethodsOffset + compressionMethodsCount;
+
+        extensionsCount = 0;
+        supportedGroupsCount = 0;
+        ecPointFormatsCount = 0;
+        signatureAlgorithmsCount = 0;
+        supportedVersionsCount = 0;
+        applicationProtocolLength = 0;
+
+        // extensions are optional
+        if (pos == end) return this;
+
+        int extensionsLength = getUint16(src, require(pos, UINT16_LENGTH, end));
+        pos += UINT16_LENGTH;
+        int extensionsEnd = require(pos, extensionsLength, end) + extensionsLength;
+
+        while (pos < extensionsEnd) {
+            int type = getUint16(src, require(pos, EXTENSION_HEADER_LENGTH, extensionsEnd));
+            int length = getUint16(src, pos + UINT16_LENGTH);
+            int body = require(pos + EXTENSION_HEADER_LENGTH, length, extensionsEnd);
+
+            if (extensionsCount == extensionOffsets.length)
+                extensionOffsets = Arrays.copyOf(extensionOffsets, extensionsCount * 2);
+            extensionOffsets[extensionsCount++] = pos;
+
+            if (type == SUPPORTED_GROUPS.value() && supportedGroupsCount == 0 && length >= UINT16_LENGTH) {
+                int groupsLength = Math.min(getUint16(src, body), length - UINT16_LENGTH);
+                supportedGroupsOffset = body + UINT16_LENGTH;
+                supportedGroupsCount = groupsLength / UINT16_LENGTH;
+            } else if (type == EC_POINT_FORMATS.value() && ecPointFormatsCount == 0 && length >= UINT8_LENGTH) {
+                ecPointFormatsOffset = body + UINT8_LENGTH;
+                ecPointFormatsCount = Math.min(getUint8(src, body), length - UINT8_LENGTH);
+            } else if (type == SIGNATURE_ALGORITHMS.value() && signatureAlgorithmsCount == 0
+                    && length >= UINT16_LENGTH) {
+                int algorithmsLength = Math.min(getUint16(src, body), length - UINT16_LENGTH);
+                signatureAlgorithmsOffset = body + UINT16_LENGTH;
+                signatureAlgorithmsCount = algorithmsLength / UINT16_LENGTH;
+            } else if (type == SUPPORTED_VERSIONS.value() && supportedVersionsCount == 0 && length >= UINT8_LENGTH) {
+                int versionsLength = Math.min(getUint8(src, body), length - UINT8_LENGTH);
+                supportedVersionsOffset = body + UINT8_LENGTH;
+                supportedVersionsCount = versionsLength / UINT16_LENGTH;
+            } else if (type == APPLICATION_LAYER_PROTOCOL_NEGOTIATION.value() && applicationProtocolLength == 0
+                    && length >= UINT16_LENGTH + UINT8_LENGTH) {
+                // only the first protocol, the client's preferred one
+                int protocolLength = getUint8(src, body + UINT16_LENGTH);
+                applicationProtocolOffset = body + UINT16_LENGTH + UINT8_LENGTH;
+                applicationProtocolLength = Math.min(protocolLength, length - UINT16_LENGTH - UINT8_LENGTH);
+            }
+
+            pos = body + length;
+        }
+
+        return this;
+    }
+
+    private static int require(int offset, int length, int limit) {
+        if (length < 0 || offset + length > limit) {
+            String msg = String.format("ClientHello field at %s of length %s exceeds limit (%s)", offset, length, limit);
+            throw new IllegalStateException(msg);
+        }
+
+        return offset;
+    }
+
+    public @NotNull ByteBuffer buffer() {
+        return src;
+    }
+
+    public int clientVersion() {
+        return clientVersion;
+    }
+
+    public int clientRandomOffset() {
+        return clientRandomOffset;
+    }
+
+    public int sessionIdOffset() {
+        return sessionIdOffset;
+    }
+
+    public int sessionIdLength() {
+        return sessionIdLength;
+    }
+
+    public int cipherSuitesCount() {
+        return cipherSuitesCount;
+    }
+
+    public int cipherSuite(int index) {
+        return getUint16(src, cipherSuitesOffset + checkIndex(index, cipherSuitesCount) * UINT16_LENGTH);
+    }
+
+    public @NotNull PrimitiveIterator.OfInt cipherSuites() {
+        return new Uint16Iterator(cipherSuitesOffset, cipherSuitesCount);
+    }
+
+    public int compressionMethodsCount() {
+        return compressionMethodsCount;
+    }
+
+    public int compressionMethod(int index) {
+        return getUint8(src, compressionMethodsOffset + checkIndex(index, compressionMethodsCount));
+    }
+
+    public int extensionsCount() {
+        return extensionsCount;
+    }
+
+    public int extensionType(int index) {
+        return getUint16(src, extensionOffsets[checkIndex(index, extensionsCount)]);
+    }
+
+    public int extensionLength(int index) {
+        return getUint16(src, extensionOffsets[checkIndex(index, extensionsCount)] + UINT16_LENGTH);
+    }
+
+    public int extensionOffset(int index) {
+        return extensionOffsets[checkIndex(index, extensionsCount)] + EXTENSION_HEADER_LENGTH;
+    }
+
+    public int indexOfExtension(int type) {
+        for (int i = 0; i < extensionsCount; i++) {
+            if (getUint16(src, extensionOffsets[i]) == type) return i;
+        }
+
+        return -1;
+    }
+
+    public @NotNull PrimitiveIterator.OfInt extensionTypes() {
+        return new ExtensionTypeIterator();
+    }
+
+    public int supportedGroupsCount() {
+        return supportedGroupsCount;
+    }
+
+    public int supportedGroup(int index) {
+        return getUint16(src, supportedGroupsOffset + checkIndex(index, supportedGroupsCount) * UINT16_LENGTH);
+    }
+
+    public @NotNull PrimitiveIterator.OfInt supportedGroups() {
+        return new Uint16Iterator(supportedGroupsOffset, supportedGroupsCount);
+    }
+
+    public int ecPointFormatsCount() {
+        return ecPointFormatsCount;
+    }
+
+    public int ecPointFormat(int index) {
+        return getUint8(src, ecPointFormatsOffset + checkIndex(index, ecPointFormatsCount));
+    }
+
+    public @NotNull PrimitiveIterator.OfInt ecPointFormats() {
+        return new Uint8Iterator(ecPointFormatsOffset, ecPointFormatsCount);
+    }
+
+    public int signatureAlgorithmsCount() {
+        return signatureAlgorithmsCount;
+    }
+
+    public int signatureAlgorithm(int index) {
+        return getUint16(src, signatureAlgorithmsOffset + checkIndex(index, signatureAlgorithmsCount) * UINT16_LENGTH);
+    }
+
+    public int supportedVersionsCount() {
+        return supportedVersionsCount;
+    }
+
+    public int supportedVersion(int index) {
+        return getUint16(src, supportedVersionsOffset + checkIndex(index, supportedVersionsCount) * UINT16_LENGTH);
+    }
+
+    /**
+     * Offset of the first protocol offered in the ALPN extension, valid while its length is non-zero.
+     */
+    public int applicationProtocolOffset() {
+        return applicationProtocolOffset;
+    }
+
+    public int applicationProtocolLength() {
+        return applicationProtocolLength;
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException(index);
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", getClass().getSimpleName() + "[", "]")
+                .add("clientVersion=" + clientVersion)
+                .add("cipherSuitesCount=" + cipherSuitesCount)
+                .add("compressionMethodsCount=" + compressionMethodsCount)
+                .add("extensionsCount=" + extensionsCount)
+                .add("supportedGroupsCount=" + supportedGroupsCount)
+                .add("ecPointFormatsCount=" + ecPointFormatsCount)
+                .add("signatureAlgorithmsCount=" + signatureAlgorithmsCount)
+                .add("supportedVersionsCount=" + supportedVersionsCount)
+                .toString();
+    }
+
+    /* ----- Classes ----- */
+
+    private final class Uint16Iterator implements PrimitiveIterator.OfInt {
+
+        /* ----- Fields ----- */
+
+        private final int end;
+        private int offset;
+
+        /* ----- Constructors ----- */
+
+        private Uint16Iterator(int offset, int count) {
+            this.offset = offset;
+            this.end = offset + count * UINT16_LENGTH;
+        }
+
+        /* ----- Methods ----- */
+
+        @Override
+        public boolean hasNext() {
+            return offset < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int value = getUint16(src, offset);
+            offset += UINT16_LENGTH;
+            return value;
+        }
+
+    }
+
+    private final class Uint8Iterator implements PrimitiveIterator.OfInt {
+
+        /* ----- Fields ----- */
+
+        private final int end;
+        private int offset;
+
+        /* ----- Constructors ----- */
+
+        private Uint8Iterator(int offset, int count) {
+            this.offset = offset;
+            this.end = offset + count;
+        }
+
+        /* ----- Methods ----- */
+
+        @Override
+        public boolean hasNext() {
+            return offset < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return getUint8(src, offset++);
+        }
+
+    }
+
+    private final class ExtensionTypeIterator implements PrimitiveIterator.OfInt {
+
+        /* ----- Fields ----- */
+
+        private int index;
+
+        /* ----- Methods ----- */
+
+        @Override
+        public boolean hasNext() {
+            return index < extensionsCount;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return getUint16(src, extensionOffsets[index++]);
+        }
+
+    }
+
+}
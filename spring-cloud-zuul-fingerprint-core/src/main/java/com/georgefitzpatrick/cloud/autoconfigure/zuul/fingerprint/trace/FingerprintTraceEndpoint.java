@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.http.MediaType;
+
+/**
+ * Serves the records held by a {@link FingerprintTracer} as a JSON array, oldest first, at the
+ * {@code fingerprinttrace} actuator endpoint. Deleting clears them.
+ *
+ * @author George Fitzpatrick
+ */
+@Endpoint(id = "fingerprinttrace")
+public final class FingerprintTraceEndpoint {
+
+    /* ----- Fields ----- */
+
+    private final FingerprintTracer tracer;
+
+    /* ----- Constructors ----- */
+
+    public FingerprintTraceEndpoint(@NotNull FingerprintTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /* ----- Methods ----- */
+
+    // the records are already JSON, so they are joined rather than serialized again as strings
+    @ReadOperation(produces = MediaType.APPLICATION_JSON_VALUE)
+    public @NotNull String traces() {
+        return "[" + String.join(",", tracer.snapshot()) + "]";
+    }
+
+    @DeleteOperation
+    public void clear() {
+        tracer.clear();
+    }
+
+}
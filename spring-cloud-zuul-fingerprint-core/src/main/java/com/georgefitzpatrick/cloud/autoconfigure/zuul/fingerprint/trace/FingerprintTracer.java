@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Trace;
+
+/**
+ * Keeps the most recent sampled {@link TraceRecord records} as JSON in a fixed-size ring buffer. Requests outside the
+ * traced routes and origins, or not sampled, cost a few field reads and allocate nothing. Each record is also logged at
+ * debug level, so traces can be shipped with the logs rather than read from the buffer.
+ *
+ * @author George Fitzpatrick
+ */
+public final class FingerprintTracer {
+
+    /* ----- Fields ----- */
+
+    private static final Logger log = LoggerFactory.getLogger(FingerprintTracer.class);
+
+    private final Supplier<Trace> config;
+    private final AtomicReferenceArray<String> records;
+    private final AtomicLong sequence;
+
+    /* ----- Constructors ----- */
+
+    /**
+     * @param config read on every request, so a refreshed configuration takes effect immediately.
+     */
+    public FingerprintTracer(@NotNull Supplier<Trace> config, int capacity) {
+        this.config = config;
+        this.records = new AtomicReferenceArray<>(capacity);
+        this.sequence = new AtomicLong();
+    }
+
+    /* ----- Methods ----- */
+
+    public @Nullable TraceRecord sample(@Nullable String route, @NotNull String origin, @NotNull String key) {
+        Trace trace = config.get();
+        if (!trace.isEnabled()) return null;
+
+        boolean selected = trace.getRoutes().isEmpty() && trace.getOrigins().isEmpty()
+                || route != null && trace.getRoutes().contains(route)
+                || trace.getOrigins().contains(origin);
+        if (!selected) return null;
+
+        double sampleRate = trace.getSampleRate();
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) return null;
+
+        return new TraceRecord(System.currentTimeMillis(), route, origin, key);
+    }
+
+    public void emit(@NotNull TraceRecord record) {
+        long index = sequence.getAndIncrement();
+        String json = record.toJson();
+        records.set((int) (index % records.length()), json);
+        log.debug("{}", json);
+    }
+
+    /**
+     * The records still held, oldest first.
+     */
+    public @NotNull List<String> snapshot() {
+        long end = sequence.get();
+        long start = Math.max(0, end - records.length());
+
+        List<String> snapshot = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            String record = records.get((int) (i % records.length()));
+            if (record != null) snapshot.add(record);
+        }
+
+        return snapshot;
+    }
+
+    public void clear() {
+        for (int i = 0; i < records.length(); i++) records.set(i, null);
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the filter saw of one sampled request: the raw fingerprints it computed, which render the parsed ClientHello
+ * and HTTP/2 frames, and what it decided.
+ *
+ * @author George Fitzpatrick
+ */
+public final class TraceRecord {
+
+    /* ----- Fields ----- */
+
+    private final long timestamp;
+    private final String route;
+    private final String origin;
+    private final String key;
+    private final List<String[]> fingerprints;
+
+    private volatile double score;
+    private volatile String outcome;
+
+    /* ----- Constructors ----- */
+
+    TraceRecord(long timestamp, @Nullable String route, @NotNull String origin, @NotNull String key) {
+        this.timestamp = timestamp;
+        this.route = route;
+        this.origin = origin;
+        this.key = key;
+        this.fingerprints = new ArrayList<>(4);
+        this.score = Double.NaN;
+    }
+
+    /* ----- Methods ----- */
+
+    /**
+     * @param fingerprint the raw fingerprint, or null when it was resolved earlier on the connection.
+     */
+    public void fingerprint(@NotNull String fingerprinter, @Nullable String fingerprint, @Nullable String hash) {
+        fingerprints.add(new String[]{fingerprinter, fingerprint, hash});
+    }
+
+    public void score(double score) {
+        this.score = score;
+    }
+
+    public void outcome(@NotNull String outcome) {
+        this.outcome = outcome;
+    }
+
+    public @NotNull String toJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"timestamp\":").append(timestamp);
+        json.append(",\"route\":");
+        string(json, route);
+        json.append(",\"origin\":");
+        string(json, origin);
+        json.append(",\"key\":");
+        string(json, key);
+
+        json.append(",\"fingerprints\":[");
+        for (int i = 0; i < fingerprints.size(); i++) {
+            String[] fingerprint = fingerprints.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"fingerprinter\":");
+            string(json, fingerprint[0]);
+            json.append(",\"fingerprint\":");
+            string(json, fingerprint[1]);
+            json.append(",\"hash\":");
+            string(json, fingerprint[2]);
+            json.append('}');
+        }
+        json.append(']');
+
+        json.append(",\"score\":");
+        if (Double.isNaN(score)) json.append("null");
+        else json.append(score);
+        json.append(",\"outcome\":");
+        string(json, outcome);
+
+        return json.append('}').toString();
+    }
+
+    private static void string(@NotNull StringBuilder json, @Nullable String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+}
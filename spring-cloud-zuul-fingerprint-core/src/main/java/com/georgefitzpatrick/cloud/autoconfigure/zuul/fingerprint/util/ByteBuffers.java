@@ -64,9 +64,12 @@ public final class ByteBuffers {
         return values;
     }
 
-    public static int getUint8(ByteBuffer src) {
-        byte[] bytes = getBytes(src, UINT8_LENGTH);
-        return Bytes.toUint8(bytes[0]);
+    public static int getUint8(@NotNull ByteBuffer src) {
+        return Bytes.toUint8(src.get());
+    }
+
+    public static int getUint8(@NotNull ByteBuffer src, int index) {
+        return Bytes.toUint8(src.get(index));
     }
 
     public static byte @NotNull [] getBytes(@NotNull ByteBuffer src, int length) {
@@ -90,14 +93,20 @@ public final class ByteBuffers {
         return values;
     }
 
-    public static int getUint16(ByteBuffer src) {
-        byte[] bytes = getBytes(src, UINT16_LENGTH);
-        return Bytes.toUint16(bytes[0], bytes[1]);
+    public static int getUint16(@NotNull ByteBuffer src) {
+        return Bytes.toUint16(src.get(), src.get());
+    }
+
+    public static int getUint16(@NotNull ByteBuffer src, int index) {
+        return Bytes.toUint16(src.get(index), src.get(index + UINT8_LENGTH));
+    }
+
+    public static int getUInt24(@NotNull ByteBuffer src) {
+        return Bytes.toUint24(src.get(), src.get(), src.get());
     }
 
-    public static int getUInt24(ByteBuffer src) {
-        byte[] bytes = getBytes(src, UINT24_LENGTH);
-        return Bytes.toUint24(bytes[0], bytes[1], bytes[2]);
+    public static int getUInt24(@NotNull ByteBuffer src, int index) {
+        return Bytes.toUint24(src.get(index), src.get(index + UINT8_LENGTH), src.get(index + UINT16_LENGTH));
     }
 
     public static @NotNull String getString(ByteBuffer src, int length, Charset charset) {
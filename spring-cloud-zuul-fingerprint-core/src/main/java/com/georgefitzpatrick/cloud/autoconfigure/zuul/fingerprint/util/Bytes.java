@@ -66,6 +66,16 @@ public final class Bytes {
         return sb.toString();
     }
 
+    public static int toHexChars(byte @NotNull [] src, int offset, int length, char @NotNull [] dst, int dstOffset) {
+        for (int i = 0; i < length; i++) {
+            int v = src[offset + i] & BITMASK;
+            dst[dstOffset++] = HEXES[v >>> 4];
+            dst[dstOffset++] = HEXES[v & 0x0F];
+        }
+
+        return dstOffset;
+    }
+
     public static @NotNull String toHexString(byte b) {
         int v = b & BITMASK;
         char[] hex = {HEXES[v >>> 4], HEXES[v & 0x0F]};
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Dense code to constant tables, so protocol enums resolve wire values with a single array load.
+ *
+ * @author George Fitzpatrick
+ */
+public final class EnumTables {
+
+    /* ----- Fields ----- */
+
+    public static final int UINT8_CODES = 1 << Bytes.ONE_BYTE;
+    public static final int UINT16_CODES = 1 << Bytes.TWO_BYTES;
+
+    /* ----- Constructors ----- */
+
+    private EnumTables() {
+
+    }
+
+    /* ----- Methods ----- */
+
+    public static <E extends Enum<E>> E @NotNull [] index(E @NotNull [] constants, @NotNull ToIntFunction<E> code, int size, @NotNull E fallback) {
+        E[] table = Arrays.copyOf(constants, size);
+        Arrays.fill(table, fallback);
+
+        // walk backwards so the first declared constant wins for duplicated codes
+        for (int i = constants.length - 1; i >= 0; i--) {
+            E constant = constants[i];
+            int value = code.applyAsInt(constant);
+            if (value >= 0 && value < size) table[value] = constant;
+        }
+
+        return table;
+    }
+
+    public static <E extends Enum<E>> @NotNull E lookup(E @NotNull [] table, int value, @NotNull E fallback) {
+        return value >= 0 && value < table.length ? table[value] : fallback;
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Writes fingerprints as ASCII straight into a per-thread byte buffer, so decimal codes are never boxed or turned into
+ * strings, and the bytes can be hashed without building the fingerprint string at all. An encoder is only valid until
+ * the next call to {@link #get()} on the same thread.
+ *
+ * @author George Fitzpatrick
+ */
+public final class FingerprintEncoder {
+
+    /* ----- Fields ----- */
+
+    private static final int DEFAULT_CAPACITY = 512;
+    private static final int MAXIMUM_DIGITS = 19;
+    private static final int MAXIMUM_DIGEST_LENGTH = 64;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<FingerprintEncoder> ENCODERS = ThreadLocal.withInitial(FingerprintEncoder::new);
+
+    private final byte[] digest;
+    private byte[] buffer;
+    private int length;
+    private int section;
+
+    /* ----- Constructors ----- */
+
+    private FingerprintEncoder() {
+        this.buffer = new byte[DEFAULT_CAPACITY];
+        this.digest = new byte[MAXIMUM_DIGEST_LENGTH];
+    }
+
+    /* ----- Methods ----- */
+
+    public static @NotNull FingerprintEncoder get() {
+        FingerprintEncoder encoder = ENCODERS.get();
+        encoder.length = 0;
+        encoder.section = 0;
+        return encoder;
+    }
+
+    /**
+     * GREASE values (RFC 8701) are the sixteen codes {@code 0x?a?a} whose two bytes are equal.
+     */
+    public static boolean isGrease(int value) {
+        return (value & 0x0f0f) == 0x0a0a && (value >> 8) == (value & 0xff);
+    }
+
+    public @NotNull FingerprintEncoder append(char c) {
+        ensure(1);
+        buffer[length++] = (byte) c;
+        return this;
+    }
+
+    public @NotNull FingerprintEncoder append(long value) {
+        ensure(MAXIMUM_DIGITS + 1);
+
+        if (value < 0) {
+            buffer[length++] = '-';
+
+            // the one value with no positive counterpart
+            if (value == Long.MIN_VALUE) {
+                append(-(value / 10));
+                buffer[length++] = (byte) ('0' + -(value % 10));
+                return this;
+            }
+
+            value = -value;
+        }
+
+        int end = length + digits(value);
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        length = end;
+        return this;
+    }
+
+    public @NotNull FingerprintEncoder append(@NotNull CharSequence value) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) buffer[length++] = (byte) value.charAt(i);
+        return this;
+    }
+
+    /**
+     * Appends the lowest digits of a value in lowercase hex, zero padded.
+     */
+    public @NotNull FingerprintEncoder appendHex(int value, int digits) {
+        ensure(digits);
+        for (int i = digits - 1; i >= 0; i--) buffer[length++] = HEX_DIGITS[(value >>> (i * 4)) & 0x0f];
+        return this;
+    }
+
+    /**
+     * Starts a section of values after the given delimiter.
+     */
+    public @NotNull FingerprintEncoder section(char delimiter) {
+        append(delimiter);
+        section = length;
+        return this;
+    }
+
+    /**
+     * Appends a value to the current section, preceded by the delimiter unless it is the first.
+     */
+    public @NotNull FingerprintEncoder value(long value, char delimiter) {
+        if (length > section) append(delimiter);
+        return append(value);
+    }
+
+    /**
+     * Appends a hex value to the current section, preceded by the delimiter unless it is the first.
+     */
+    public @NotNull FingerprintEncoder hexValue(int value, int digits, char delimiter) {
+        if (length > section) append(delimiter);
+        return appendHex(value, digits);
+    }
+
+    /**
+     * Replaces everything written from the given length on with the first hex digits of its digest.
+     */
+    public @NotNull FingerprintEncoder digest(int from, @NotNull MessageDigest digest, int digits) {
+        digest.update(buffer, from, length - from);
+
+        int digestLength;
+        try {
+            digestLength = digest.digest(this.digest, 0, MAXIMUM_DIGEST_LENGTH);
+        } catch (DigestException e) {
+            digest.reset();
+            throw new IllegalStateException(e);
+        }
+
+        length = from;
+        ensure(digits);
+        for (int i = 0; i < digits && i < digestLength * 2; i++) {
+            int b = this.digest[i / 2];
+            buffer[length++] = HEX_DIGITS[(i % 2 == 0 ? b >>> 4 : b) & 0x0f];
+        }
+
+        return this;
+    }
+
+    public boolean isSectionEmpty() {
+        return length == section;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public @NotNull String hash(@NotNull FingerprintHasher hasher) {
+        return hasher.hash(buffer, 0, length);
+    }
+
+    private void ensure(int capacity) {
+        if (buffer.length - length < capacity)
+            buffer = Arrays.copyOf(buffer, Math.max(length + capacity, buffer.length * 2));
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        for (long limit = 10; digits < MAXIMUM_DIGITS && value >= limit; limit *= 10) digits++;
+        return digits;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,155 @@
+--
+-- Copyright 2021 George Fitzpatrick
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- KEYS: per policy, its key and ban key, then for SLIDING_COUNTER the keys of the current and previous windows, so a
+--       cluster can route every key the script touches
+-- ARGV: used, now (ms), then per policy: algorithm, limit, refresh (ms), penalty count, then (exceeded, penalty (ms))
+--       pairs in ascending order of exceeded
+-- returns the remaining allowance of each policy, or Bucket.BANNED (-2^63) for a key that is already banned; when any
+-- key is banned nothing is counted and the policies that are not banned report 0
+
+local used = tonumber(ARGV[1])
+local now = tonumber(ARGV[2])
+local banned = -9223372036854775808
+
+-- a counter left without a ttl would never reset
+local function expire_new(key, usage, ttl)
+    if usage == used or redis.call('PTTL', key) == -1 then
+        redis.call('PEXPIRE', key, ttl)
+    end
+end
+
+local function fixed(key, limit, refresh)
+    local usage = redis.call('INCRBY', key, used)
+    expire_new(key, usage, refresh)
+    return usage
+end
+
+-- one counter per window, each kept until the window after it ends
+local function sliding_counter(current, previous, limit, refresh)
+    local window = math.floor(now / refresh)
+
+    local usage = redis.call('INCRBY', current, used)
+    expire_new(current, usage, refresh * 2)
+
+    previous = tonumber(redis.call('GET', previous) or '0')
+    local overlap = 1 - (now - window * refresh) / refresh
+
+    return usage + math.floor(previous * overlap)
+end
+
+-- hits beyond the limit and the highest penalty threshold are not logged, which bounds the log
+local function sliding_log(key, limit, refresh, capacity)
+    redis.call('ZREMRANGEBYSCORE', key, '-inf', '(' .. (now - refresh))
+
+    local size = redis.call('ZCARD', key)
+    local usage = size + used
+
+    for i = 1, math.min(used, capacity - size) do
+        redis.call('ZADD', key, now, now .. ':' .. (size + i))
+    end
+    redis.call('PEXPIRE', key, refresh)
+
+    return usage
+end
+
+-- every hit, conforming or not, moves the theoretical arrival time on by one emission interval, but never past the
+-- refresh window plus enough intervals to reach the highest penalty threshold
+local function gcra(key, limit, refresh, highest)
+    local interval = refresh / limit
+    local tat = math.max(tonumber(redis.call('GET', key) or now), now)
+    tat = math.min(tat + interval * used, math.max(now + refresh + interval * (highest + 1), tat))
+
+    redis.call('SET', key, string.format('%.3f', tat), 'PX', math.max(1, math.ceil(tat - now)))
+    return math.ceil((tat - now) / interval)
+end
+
+local policies = {}
+local arg = 3
+local index = 1
+while arg <= #ARGV do
+    local policy = {
+        algorithm = ARGV[arg],
+        limit = tonumber(ARGV[arg + 1]),
+        refresh = tonumber(ARGV[arg + 2]),
+        penalties = tonumber(ARGV[arg + 3]),
+        key = KEYS[index],
+        ban = KEYS[index + 1]
+    }
+    policy.arg = arg + 4
+    index = index + 2
+
+    if policy.algorithm == 'SLIDING_COUNTER' then
+        policy.current = KEYS[index]
+        policy.previous = KEYS[index + 1]
+        index = index + 2
+    end
+
+    policies[#policies + 1] = policy
+    arg = policy.arg + policy.penalties * 2
+end
+
+local remaining = {}
+
+-- a request with any policy banned is refused before anything is counted
+local refused = false
+for i, policy in ipairs(policies) do
+    if redis.call('EXISTS', policy.ban) == 1 then
+        remaining[i] = banned
+        refused = true
+    else
+        remaining[i] = 0
+    end
+end
+
+if refused then
+    return remaining
+end
+
+for i, policy in ipairs(policies) do
+    local key = policy.key
+    local limit = policy.limit
+    local penalties = policy.penalties
+    local arg = policy.arg
+    local highest = penalties > 0 and tonumber(ARGV[arg + (penalties - 1) * 2]) or 0
+
+    local usage
+    if policy.algorithm == 'SLIDING_COUNTER' then
+        usage = sliding_counter(policy.current, policy.previous, limit, policy.refresh)
+    elseif policy.algorithm == 'SLIDING_LOG' then
+        usage = sliding_log(key, limit, policy.refresh, limit + highest + 1)
+    elseif policy.algorithm == 'GCRA' then
+        usage = gcra(key, limit, policy.refresh, highest)
+    else
+        usage = fixed(key, limit, policy.refresh)
+    end
+
+    -- the highest threshold the overage has reached, however far past it the overage has jumped
+    local exceeded = usage - limit
+    local penalty = nil
+    for j = 0, exceeded > 0 and penalties - 1 or -1 do
+        if tonumber(ARGV[arg + j * 2]) > exceeded then break end
+        penalty = tonumber(ARGV[arg + j * 2 + 1])
+    end
+
+    if penalty ~= nil then
+        redis.call('SET', policy.ban, '1', 'PX', penalty)
+    end
+
+    remaining[i] = limit - usage
+end
+
+return remaining
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Dataset;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class CachingDatasetUnitTest {
+
+    private static final Duration TTL = Duration.ofSeconds(60);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(10);
+    private static final Duration REFRESH_AHEAD = Duration.ofSeconds(20);
+
+    private CountingDataset delegate;
+    private AtomicLong ticker;
+    private CachingDataset dataset;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new CountingDataset();
+        ticker = new AtomicLong();
+        dataset = new CachingDataset(delegate, 2, TTL, NEGATIVE_TTL, REFRESH_AHEAD, Runnable::run, ticker::get);
+    }
+
+    @Test
+    void testGetAll_readThrough() {
+        delegate.data.put("A", "chrome");
+
+        assertEquals(Arrays.asList("chrome", null), dataset.getAll(Arrays.asList("A", "B")));
+        assertEquals(Arrays.asList("chrome", null), dataset.getAll(Arrays.asList("A", "B")));
+
+        assertEquals(1, delegate.reads);
+        assertEquals(2, dataset.hitCount());
+        assertEquals(2, dataset.missCount());
+    }
+
+    @Test
+    void testGet_expiry() {
+        delegate.data.put("A", "chrome");
+        dataset.get("A");
+        dataset.get("B");
+
+        ticker.addAndGet(NEGATIVE_TTL.toNanos());
+        dataset.get("A");
+        dataset.get("B");
+        assertEquals(3, delegate.reads);
+
+        ticker.addAndGet(TTL.toNanos());
+        dataset.get("A");
+        assertEquals(4, delegate.reads);
+    }
+
+    @Test
+    void testGet_refreshAhead() {
+        delegate.data.put("A", "chrome");
+        dataset.get("A");
+
+        delegate.data.put("A", "firefox");
+        ticker.addAndGet(TTL.minus(REFRESH_AHEAD).toNanos());
+
+        assertEquals("chrome", dataset.get("A"));
+        assertEquals("firefox", dataset.get("A"));
+        assertEquals(2, delegate.reads);
+    }
+
+    @Test
+    void testSet_invalidates() {
+        dataset.set("A", "chrome");
+        assertEquals("chrome", dataset.get("A"));
+
+        dataset.setAll(Collections.singletonMap("A", "firefox"));
+        assertEquals("firefox", dataset.get("A"));
+    }
+
+    @Test
+    void testGet_bounded() {
+        for (int i = 0; i < 10; i++) dataset.get(String.valueOf(i));
+
+        assertTrue(dataset.size() <= 2);
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class CountingDataset implements Dataset {
+
+        /* ----- Fields ----- */
+
+        private final Map<String, String> data = new HashMap<>();
+        private int reads;
+
+        /* ----- Methods ----- */
+
+        @Override
+        public @Nullable String get(String key) {
+            reads++;
+            return data.get(key);
+        }
+
+        @Override
+        public @NotNull List<String> getAll(Collection<String> keys) {
+            reads++;
+            List<String> values = new ArrayList<>(keys.size());
+            for (String key : keys) values.add(data.get(key));
+            return values;
+        }
+
+        @Override
+        public void set(@NotNull String key, String value) {
+            data.put(key, value);
+        }
+
+        @Override
+        public void setAll(@NotNull Map<String, String> data) {
+            this.data.putAll(data);
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis.BanReplicationListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class LocalBanListUnitTest {
+
+    private AtomicLong clock;
+    private LocalBanList banList;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_000_000);
+        banList = new LocalBanList(4, clock::get);
+    }
+
+    @Test
+    void testBan_expires() {
+        banList.ban("key", Duration.ofMinutes(1));
+        assertTrue(banList.isBanned("key"));
+        assertFalse(banList.isBanned("other"));
+
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertFalse(banList.isBanned("key"));
+        assertEquals(0, banList.size());
+    }
+
+    @Test
+    void testBan_keepsLongest() {
+        banList.ban("key", Duration.ofHours(1));
+        banList.ban("key", Duration.ofMinutes(1));
+
+        clock.addAndGet(Duration.ofMinutes(30).toMillis());
+        assertTrue(banList.isBanned("key"));
+    }
+
+    @Test
+    void testBan_maximumSize() {
+        for (int i = 0; i < 10; i++) banList.ban("key" + i, Duration.ofMinutes(1));
+
+        assertTrue(banList.size() <= 4, String.valueOf(banList.size()));
+    }
+
+    @Test
+    void testReplication() {
+        long until = clock.get() + Duration.ofMinutes(1).toMillis();
+        byte[] body = ("route:10.0.0.1\n" + until).getBytes(StandardCharsets.UTF_8);
+
+        new BanReplicationListener(banList).onMessage(new DefaultMessage(new byte[0], body), null);
+
+        assertTrue(banList.isBanned("route:10.0.0.1"));
+    }
+
+}
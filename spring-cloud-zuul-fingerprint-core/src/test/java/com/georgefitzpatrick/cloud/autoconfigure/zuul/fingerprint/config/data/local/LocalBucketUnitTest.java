@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class LocalBucketUnitTest {
+
+    private AtomicLong clock;
+    private LocalBucket bucket;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_000_000);
+        bucket = new LocalBucket(1024, 4, clock::get);
+    }
+
+    @Test
+    void testConsume_refresh() {
+        Policy policy = policy(2, Duration.ofMinutes(1));
+
+        assertEquals(1, bucket.consume("key", policy, 1));
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(-1, bucket.consume("key", policy, 1));
+
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertEquals(1, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_penalty() {
+        Policy policy = policy(1, Duration.ofMinutes(1));
+        policy.setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+
+        bucket.consume("key", policy, 1);
+        bucket.consume("key", policy, 1);
+
+        clock.addAndGet(Duration.ofMinutes(30).toMillis());
+        assertEquals(Bucket.BANNED, bucket.consume("key", policy, 1));
+
+        clock.addAndGet(Duration.ofHours(1).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_penaltyFloor() {
+        Policy policy = policy(1, Duration.ofMinutes(1));
+        policy.setPenalties(Collections.singletonMap(3L, Duration.ofHours(1)));
+
+        // a weighted hit jumps straight past the threshold
+        assertEquals(-4, bucket.consume("key", policy, 5));
+
+        clock.addAndGet(Duration.ofMinutes(30).toMillis());
+        assertEquals(Bucket.BANNED, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsumeAll() {
+        List<Policy> policies = Arrays.asList(policy(2, Duration.ofMinutes(1)), policy(5, Duration.ofHours(1)));
+
+        assertArrayEquals(new long[]{1, 4}, bucket.consumeAll("key", policies, 1));
+        assertArrayEquals(new long[]{-1, 2}, bucket.consumeAll("key", policies, 2));
+        assertEquals(3, bucket.get(Bucket.policyKey("key", 1)));
+    }
+
+    @Test
+    void testConsume_slidingCounter() {
+        Policy policy = policy(10, Duration.ofMinutes(1), Algorithm.SLIDING_COUNTER);
+
+        assertEquals(2, bucket.consume("key", policy, 8));
+        assertEquals(8, bucket.get("key", policy));
+
+        // half of the previous window still overlaps
+        clock.addAndGet(Duration.ofSeconds(90).toMillis());
+        assertEquals(4, bucket.get("key", policy));
+        assertEquals(5, bucket.consume("key", policy, 1));
+
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertEquals(9, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_slidingLog() {
+        Policy policy = policy(2, Duration.ofMinutes(1), Algorithm.SLIDING_LOG);
+
+        assertEquals(1, bucket.consume("key", policy, 1));
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(2, bucket.get("key", policy));
+
+        // only the first hit has left the window
+        clock.addAndGet(Duration.ofSeconds(31).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_gcra() {
+        Policy policy = policy(2, Duration.ofMinutes(1), Algorithm.GCRA);
+
+        assertEquals(1, bucket.consume("key", policy, 1));
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(-1, bucket.consume("key", policy, 1));
+        assertEquals(3, bucket.get("key", policy));
+
+        // one emission interval frees one hit
+        clock.addAndGet(Duration.ofSeconds(60).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_gcraPenalty() {
+        Policy policy = policy(2, Duration.ofMinutes(1), Algorithm.GCRA);
+        policy.setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+
+        bucket.consume("key", policy, 3);
+
+        clock.addAndGet(Duration.ofMinutes(30).toMillis());
+        assertTrue(bucket.consume("key", policy, 1) < 0);
+
+        clock.addAndGet(Duration.ofHours(1).toMillis());
+        assertEquals(1, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_capacity() {
+        Policy policy = policy(10, Duration.ofHours(1));
+
+        for (int i = 0; i < 10_000; i++) bucket.consume("10.0." + (i >> 8) + "." + (i & 0xFF), policy, 1);
+
+        assertTrue(bucket.size() <= bucket.capacity());
+        assertEquals(8, bucket.consume("10.0.39.15", policy, 1));
+    }
+
+    @Test
+    void testConsume_timersBounded() {
+        LocalBucket bucket = new LocalBucket(1024);
+        Policy policy = policy(10, Duration.ofHours(1));
+
+        for (int i = 0; i < 200_000; i++) bucket.consume("key" + i, policy, 1);
+
+        assertTrue(bucket.size() <= bucket.capacity());
+        assertTrue(bucket.timers() <= bucket.capacity());
+    }
+
+    @Test
+    void testConsume_expiryReleasesSlots() {
+        Policy policy = policy(10, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 100; i++) bucket.consume("key" + i, policy, 1);
+        assertEquals(100, bucket.size());
+
+        clock.addAndGet(Duration.ofSeconds(2).toMillis());
+        bucket.consume("other", policy, 1);
+
+        assertEquals(1, bucket.size());
+    }
+
+    @Test
+    void testConsume_concurrent() throws InterruptedException {
+        Policy policy = policy(Long.MAX_VALUE / 2, Duration.ofHours(1));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) bucket.consume("key", policy, 1);
+            });
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(40_000, bucket.get("key"));
+    }
+
+    private static Policy policy(long limit, Duration refresh) {
+        return policy(limit, refresh, Algorithm.FIXED);
+    }
+
+    private static Policy policy(long limit, Duration refresh, Algorithm algorithm) {
+        Policy policy = new Policy();
+        policy.setLimit(limit);
+        policy.setRefresh(refresh);
+        policy.setAlgorithm(algorithm);
+        return policy;
+    }
+
+}
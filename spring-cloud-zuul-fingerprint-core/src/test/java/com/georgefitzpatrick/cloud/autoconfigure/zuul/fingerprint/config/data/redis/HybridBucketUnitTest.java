@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class HybridBucketUnitTest {
+
+    private AtomicLong clock;
+    private CountingBucket shared;
+    private HybridBucket node;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        shared = new CountingBucket(new LocalBucket(1 << 16));
+        node = new HybridBucket(shared, Duration.ofSeconds(1), 1024, clock::get, null);
+    }
+
+    @Test
+    void testConsume_batches() {
+        Policy policy = policy(1000, 10);
+
+        for (int i = 0; i < 100; i++) node.consume("key", policy, 1);
+
+        assertTrue(shared.calls <= 11, String.valueOf(shared.calls));
+        assertEquals(100, node.get("key"));
+
+        node.flushAll();
+        assertEquals(100, shared.get("key"));
+    }
+
+    @Test
+    void testConsume_rejectsOnGlobalUsage() {
+        Policy policy = policy(50, 10);
+        HybridBucket other = new HybridBucket(shared, Duration.ofSeconds(1), 1024, clock::get, null);
+
+        for (int i = 0; i < 45; i++) other.consume("key", policy, 1);
+        other.flushAll();
+
+        long remaining = 0;
+        for (int i = 0; i < 10; i++) remaining = node.consume("key", policy, 1);
+
+        assertEquals(-5, remaining);
+    }
+
+    @Test
+    void testConsume_flushInterval() {
+        Policy policy = policy(1000, 100);
+
+        node.consume("key", policy, 1);
+        node.consume("key", policy, 1);
+        int calls = shared.calls;
+
+        clock.addAndGet(1000);
+        node.consume("key", policy, 1);
+
+        assertEquals(calls + 1, shared.calls);
+        assertEquals(3, shared.get("key"));
+    }
+
+    @Test
+    void testConsume_bounded() {
+        HybridBucket bounded = new HybridBucket(shared, Duration.ofSeconds(1), 16, clock::get, null);
+        Policy policy = policy(1000, 10);
+
+        for (int i = 0; i < 1000; i++) {
+            clock.incrementAndGet();
+            bounded.consume("key" + i, policy, 1);
+            bounded.consume("key" + i, policy, 1);
+        }
+
+        // evicted keys flushed their pending hits on the way out
+        assertTrue(bounded.size() <= 16, String.valueOf(bounded.size()));
+        bounded.flushAll();
+        long total = 0;
+        for (int i = 0; i < 1000; i++) total += shared.get("key" + i);
+        assertEquals(2000, total);
+    }
+
+    @Test
+    void testConsume_banned() {
+        Policy policy = policy(10, 5);
+        policy.setPenalties(Collections.singletonMap(1L, Duration.ofMinutes(5)));
+
+        for (int i = 0; i < 11; i++) node.consume("key", policy, 1);
+        node.flushAll();
+        int calls = shared.calls;
+
+        // refused locally, without counting, until the flush interval asks the shared bucket again
+        for (int i = 0; i < 100; i++) assertEquals(Bucket.BANNED, node.consume("key", policy, 1));
+        assertEquals(calls, shared.calls);
+
+        clock.addAndGet(1000);
+        assertEquals(Bucket.BANNED, node.consume("key", policy, 1));
+        assertEquals(calls + 1, shared.calls);
+    }
+
+    @Test
+    void testConsume_withoutOvershoot() {
+        Policy policy = policy(1000, 0);
+
+        for (int i = 0; i < 5; i++) node.consume("key", policy, 1);
+
+        assertEquals(5, shared.calls);
+    }
+
+    private static Policy policy(long limit, long overshoot) {
+        Policy policy = new Policy();
+        policy.setLimit(limit);
+        policy.setRefresh(Duration.ofMinutes(1));
+        policy.setOvershoot(overshoot);
+        return policy;
+    }
+
+    /* ----- Classes ----- */
+
+    private static final class CountingBucket implements Bucket {
+
+        /* ----- Fields ----- */
+
+        private final Bucket delegate;
+        private int calls;
+
+        /* ----- Constructors ----- */
+
+        private CountingBucket(Bucket delegate) {
+            this.delegate = delegate;
+        }
+
+        /* ----- Methods ----- */
+
+        @Override
+        public long get(String key) {
+            return delegate.get(key);
+        }
+
+        @Override
+        public long consume(String key, Policy policy, long used) {
+            calls++;
+            return delegate.consume(key, policy, used);
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class RedisBucketUnitTest extends AbstractRedisUnitTest {
+
+    private AtomicLong clock;
+    private RedisBucket bucket;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(Duration.ofMinutes(1000).toMillis());
+        bucket = new RedisBucket(redis, clock::get);
+    }
+
+    @Test
+    void testConsumeAll() {
+        Policy penalised = policy(2, Duration.ofMinutes(1));
+        penalised.setPenalties(Collections.singletonMap(1L, Duration.ofHours(2)));
+        List<Policy> policies = Arrays.asList(penalised, policy(5, Duration.ofHours(1)));
+
+        assertArrayEquals(new long[]{1, 4}, bucket.consumeAll("route:10.0.0.1", policies, 1));
+        assertArrayEquals(new long[]{-1, 2}, bucket.consumeAll("route:10.0.0.1", policies, 2));
+
+        // the ban refuses the request before any policy is counted again
+        assertArrayEquals(new long[]{Bucket.BANNED, 0}, bucket.consumeAll("route:10.0.0.1", policies, 1));
+        assertEquals(3, bucket.get(Bucket.policyKey("route:10.0.0.1", 0)));
+        assertEquals(3, bucket.get(Bucket.policyKey("route:10.0.0.1", 1)));
+
+        Long penalty = redis.getExpire(Bucket.banKey(Bucket.policyKey("route:10.0.0.1", 0)));
+        Long refresh = redis.getExpire(Bucket.policyKey("route:10.0.0.1", 1));
+        assertNotNull(penalty);
+        assertNotNull(refresh);
+        assertTrue(penalty > 3600, String.valueOf(penalty));
+        assertTrue(refresh > 60 && refresh <= 3600, String.valueOf(refresh));
+    }
+
+    @Test
+    void testConsumeAll_restoresMissingTtl() {
+        redis.opsForValue().set(Bucket.policyKey("key", 0), "7");
+
+        bucket.consumeAll("key", Collections.singletonList(policy(10, Duration.ofMinutes(1))), 1);
+
+        Long ttl = redis.getExpire(Bucket.policyKey("key", 0));
+        assertNotNull(ttl);
+        assertTrue(ttl > 0, String.valueOf(ttl));
+    }
+
+    @Test
+    void testConsume_slidingCounter() {
+        Policy policy = policy(10, Duration.ofMinutes(1));
+        policy.setAlgorithm(Algorithm.SLIDING_COUNTER);
+
+        assertEquals(2, bucket.consume("key", policy, 8));
+
+        // half of the previous window still overlaps
+        clock.addAndGet(Duration.ofSeconds(90).toMillis());
+        assertEquals(5, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_slidingLog() {
+        Policy policy = policy(2, Duration.ofMinutes(1));
+        policy.setAlgorithm(Algorithm.SLIDING_LOG);
+
+        assertEquals(1, bucket.consume("key", policy, 1));
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+
+        // only the first hit has left the window
+        clock.addAndGet(Duration.ofSeconds(31).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(2, bucket.get("key", policy));
+    }
+
+    @Test
+    void testConsume_gcra() {
+        Policy policy = policy(2, Duration.ofMinutes(1));
+        policy.setAlgorithm(Algorithm.GCRA);
+        policy.setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+
+        assertEquals(1, bucket.consume("key", policy, 1));
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(-1, bucket.consume("key", policy, 1));
+        assertEquals(3, bucket.get("key", policy));
+        assertEquals(Bucket.BANNED, bucket.consume("key", policy, 1));
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.redis;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class RedisScriptBucketUnitTest extends AbstractRedisUnitTest {
+
+    private AtomicLong clock;
+    private RedisScriptBucket bucket;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(Duration.ofMinutes(1000).toMillis());
+        bucket = new RedisScriptBucket(redis, clock::get);
+    }
+
+    @Test
+    void testConsumeAll() {
+        List<Policy> policies = Arrays.asList(policy(2, Duration.ofMinutes(1)), policy(5, Duration.ofHours(1)));
+
+        assertArrayEquals(new long[]{1, 4}, bucket.consumeAll("route:10.0.0.1", policies, 1));
+        assertArrayEquals(new long[]{-1, 2}, bucket.consumeAll("route:10.0.0.1", policies, 2));
+
+        Long refresh = redis.getExpire(Bucket.policyKey("route:10.0.0.1", 1));
+        assertNotNull(refresh);
+        assertTrue(refresh > 60 && refresh <= 3600, String.valueOf(refresh));
+    }
+
+    @Test
+    void testConsumeAll_banned() {
+        Policy penalised = policy(1, Duration.ofMinutes(1));
+        penalised.setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+        List<Policy> policies = Arrays.asList(policy(10, Duration.ofMinutes(1)), penalised);
+
+        assertArrayEquals(new long[]{8, -1}, bucket.consumeAll("key", policies, 2));
+
+        // no policy is counted for a request a ban refuses
+        assertArrayEquals(new long[]{0, Bucket.BANNED}, bucket.consumeAll("key", policies, 1));
+        assertEquals("2", redis.opsForValue().get(Bucket.policyKey("key", 0)));
+    }
+
+    @Test
+    void testConsume_rebound() {
+        Policy policy = policy(10, Duration.ofMinutes(1));
+
+        assertEquals(9, bucket.consume("key", policy, 1));
+
+        // the arguments built for the policy are not reused once it changes
+        policy.setLimit(20);
+        policy.setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+        assertEquals(-1, bucket.consume("key", policy, 20));
+        assertEquals(Bucket.BANNED, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_firstUseExpires() {
+        Policy policy = policy(10, Duration.ofMinutes(1));
+
+        bucket.consume("key", policy, 3);
+
+        Long ttl = redis.getExpire("key");
+        assertNotNull(ttl);
+        assertTrue(ttl > 0, String.valueOf(ttl));
+    }
+
+    @Test
+    void testConsume_restoresMissingTtl() {
+        redis.opsForValue().set("key", "7");
+
+        bucket.consume("key", policy(10, Duration.ofMinutes(1)), 1);
+
+        Long ttl = redis.getExpire("key");
+        assertNotNull(ttl);
+        assertTrue(ttl > 0, String.valueOf(ttl));
+    }
+
+    @Test
+    void testConsume_penalty() {
+        Policy policy = policy(1, Duration.ofMinutes(1));
+        policy.setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(-1, bucket.consume("key", policy, 1));
+        assertEquals(Bucket.BANNED, bucket.consume("key", policy, 1));
+        assertEquals(2, bucket.get("key"));
+
+        Long ttl = redis.getExpire(Bucket.banKey("key"));
+        assertNotNull(ttl);
+        assertTrue(ttl > 60, String.valueOf(ttl));
+    }
+
+    @Test
+    void testConsume_penaltyCrossed() {
+        Policy policy = policy(1, Duration.ofMinutes(1));
+        policy.setPenalties(Collections.singletonMap(2L, Duration.ofHours(1)));
+
+        assertEquals(-3, bucket.consume("key", policy, 4));
+
+        Long ttl = redis.getExpire(Bucket.banKey("key"));
+        assertNotNull(ttl);
+        assertTrue(ttl > 60, String.valueOf(ttl));
+    }
+
+    @Test
+    void testConsume_slidingLogPenalty() {
+        Policy policy = policy(1, Duration.ofMinutes(1));
+        policy.setAlgorithm(Algorithm.SLIDING_LOG);
+        policy.setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+
+        bucket.consume("key", policy, 2);
+
+        clock.addAndGet(Duration.ofMinutes(5).toMillis());
+        assertEquals(Bucket.BANNED, bucket.consume("key", policy, 1));
+        assertEquals(2, redis.opsForZSet().zCard("key"));
+    }
+
+    @Test
+    void testConsume_slidingCounter() {
+        Policy policy = policy(10, Duration.ofMinutes(1));
+        policy.setAlgorithm(Algorithm.SLIDING_COUNTER);
+
+        assertEquals(2, bucket.consume("key", policy, 8));
+        assertEquals(8, bucket.get("key", policy));
+
+        clock.addAndGet(Duration.ofSeconds(90).toMillis());
+        assertEquals(4, bucket.get("key", policy));
+        assertEquals(5, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_slidingLog() {
+        Policy policy = policy(2, Duration.ofMinutes(1));
+        policy.setAlgorithm(Algorithm.SLIDING_LOG);
+
+        assertEquals(1, bucket.consume("key", policy, 1));
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(2, bucket.get("key", policy));
+
+        clock.addAndGet(Duration.ofSeconds(31).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+    }
+
+    @Test
+    void testConsume_gcra() {
+        Policy policy = policy(2, Duration.ofMinutes(1));
+        policy.setAlgorithm(Algorithm.GCRA);
+
+        assertEquals(1, bucket.consume("key", policy, 1));
+        assertEquals(0, bucket.consume("key", policy, 1));
+        assertEquals(-1, bucket.consume("key", policy, 1));
+        assertEquals(3, bucket.get("key", policy));
+
+        clock.addAndGet(Duration.ofSeconds(60).toMillis());
+        assertEquals(0, bucket.consume("key", policy, 1));
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.corpus;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2.HTTP2FrameRecorder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class CorpusRecorderUnitTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecord() throws Exception {
+        Path file = directory.resolve("corpus.bin");
+
+        HTTP2FrameRecorder frames = new HTTP2FrameRecorder();
+        frames.addSetting(1, 65536);
+        frames.addSetting(4, 131072);
+        frames.addWindowUpdate(12517377);
+        frames.addPriority(3, false, 0, 200);
+        frames.addPseudoHeader('m');
+        frames.addPseudoHeader('p');
+        frames.setHeadersPriority(true, 0, 42);
+
+        CorpusRecorder recorder = new CorpusRecorder(file, 2);
+        recorder.clientHello(ByteBuffer.wrap(new byte[]{3, 3, 1, 2}));
+        recorder.preface(frames);
+
+        // full, so dropped
+        recorder.clientHello(ByteBuffer.wrap(new byte[]{3, 1}));
+        recorder.close();
+        assertEquals(2, recorder.size());
+
+        List<Corpus.Entry> entries = Corpus.read(file);
+        assertEquals(2, entries.size());
+
+        assertEquals(Corpus.CLIENT_HELLO, entries.get(0).type());
+        assertArrayEquals(new byte[]{3, 3, 1, 2}, entries.get(0).payload());
+
+        assertEquals(Corpus.HTTP2_PREFACE, entries.get(1).type());
+        HTTP2FrameRecorder decoded = Corpus.decodePreface(entries.get(1).payload());
+        assertEquals(2, decoded.settingsCount());
+        assertEquals(1, decoded.settingId(0));
+        assertEquals(65536, decoded.settingValue(0));
+        assertEquals(4, decoded.settingId(1));
+        assertEquals(131072, decoded.settingValue(1));
+        assertEquals(1, decoded.windowUpdatesCount());
+        assertEquals(12517377, decoded.windowUpdate(0));
+        assertEquals(200, decoded.priorityWeight(0));
+        assertEquals(2, decoded.pseudoHeadersCount());
+        assertEquals('p', decoded.pseudoHeader(1));
+        assertTrue(decoded.isHeadersPrioritized());
+        assertEquals(42, decoded.headersPriorityWeight());
+    }
+
+    @Test
+    void testRecord_queueFull() throws Exception {
+        Path file = directory.resolve("corpus.bin");
+
+        CorpusRecorder recorder = new CorpusRecorder(file, Integer.MAX_VALUE, 1);
+        for (int i = 0; i < 10_000; i++) recorder.clientHello(ByteBuffer.wrap(new byte[]{3, 3}));
+        recorder.close();
+
+        // every entry is either written or dropped, never waited on
+        assertEquals(10_000, recorder.size() + recorder.dropped());
+        assertEquals(recorder.size(), Corpus.read(file).size());
+    }
+
+}
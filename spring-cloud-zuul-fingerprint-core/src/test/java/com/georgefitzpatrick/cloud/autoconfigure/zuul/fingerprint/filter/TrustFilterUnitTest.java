@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.filter;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Bucket;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Dataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Fingerprinter;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalBanList;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash.HashAlgorithm;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics.FingerprintMetrics;
+import com.netflix.zuul.context.RequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.netflix.zuul.filters.Route;
+import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Policy;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class TrustFilterUnitTest {
+
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private FingerprintProperties properties;
+    private Bucket bucket;
+    private LocalBanList banList;
+    private TrustFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        Policy policy = new Policy();
+        policy.setLimit(10);
+        policy.setRefresh(Duration.ofMinutes(1));
+
+        properties = new FingerprintProperties();
+        properties.getPolicies().add(policy);
+        properties.getAsync().setDeadline(Duration.ofMillis(20));
+
+        // a dataset that never answers
+        Dataset dataset = mock(Dataset.class);
+        when(dataset.getAll(anyList())).thenAnswer(invocation -> {
+            stalled.await();
+            return Collections.singletonList(null);
+        });
+        when(dataset.getAllAsync(any(), any())).thenCallRealMethod();
+
+        bucket = mock(Bucket.class);
+        when(bucket.consumeAllAsync(anyString(), anyList(), anyLong(), any())).thenCallRealMethod();
+        banList = new LocalBanList(10);
+
+        RouteLocator routeLocator = mock(RouteLocator.class);
+        when(routeLocator.getMatchingRoute(anyString())).thenReturn(new Route("route", "/**", "/", "", null, null));
+
+        Fingerprinter fingerprinter = ctx -> "fingerprint";
+
+        filter = new TrustFilter(properties, Collections.singletonList(fingerprinter), String::equals, routeLocator,
+                (req, route, origin) -> route.getId() + ":" + origin, bucket, dataset, HashAlgorithm.MD5.newHasher(),
+                new ConnectionRegistry(), banList, executor);
+
+        RequestContext ctx = new RequestContext();
+        ctx.setRequest(new MockHttpServletRequest("GET", "/"));
+        ctx.setResponse(new MockHttpServletResponse());
+        RequestContext.testSetCurrentContext(ctx);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalled.countDown();
+        executor.shutdownNow();
+        RequestContext.testSetCurrentContext(null);
+    }
+
+    @Test
+    void testRun_deadlineFailOpen() throws Exception {
+        filter.run();
+
+        RequestContext ctx = RequestContext.getCurrentContext();
+        assertTrue(ctx.sendZuulResponse());
+        assertEquals(1, filter.getTimeoutCount());
+        assertEquals(1, filter.getFallbackCount());
+        verify(bucket, never()).consumeAll(anyString(), anyList(), anyLong());
+    }
+
+    @Test
+    void testRun_deadlineFailClosed() throws Exception {
+        properties.getAsync().setFailurePolicy(FailurePolicy.CLOSED);
+        FingerprintMetrics metrics = mock(FingerprintMetrics.class);
+        filter.setMetrics(metrics);
+
+        filter.run();
+
+        RequestContext ctx = RequestContext.getCurrentContext();
+        assertFalse(ctx.sendZuulResponse());
+        assertEquals(503, ctx.getResponseStatusCode());
+        assertEquals(1, filter.getFallbackCount());
+        verify(metrics).rejected("fallback");
+    }
+
+    @Test
+    void testRun_banListed() throws Exception {
+        FingerprintMetrics metrics = mock(FingerprintMetrics.class);
+        filter.setMetrics(metrics);
+        banList.ban("route:127.0.0.1", Duration.ofHours(1));
+
+        filter.run();
+
+        assertEquals(429, RequestContext.getCurrentContext().getResponseStatusCode());
+        verify(metrics).rejected("banned");
+        verify(bucket, never()).consumeAll(anyString(), anyList(), anyLong());
+    }
+
+    @Test
+    void testRun_penaltyReached() throws Exception {
+        properties.getPolicies().get(0).setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+        when(bucket.consumeAll(anyString(), anyList(), anyLong())).thenReturn(new long[]{-1});
+        stalled.countDown();
+
+        filter.run();
+
+        assertEquals(429, RequestContext.getCurrentContext().getResponseStatusCode());
+        assertTrue(banList.isBanned("route:127.0.0.1"));
+    }
+
+    @Test
+    void testRun_alreadyBanned() throws Exception {
+        properties.getPolicies().get(0).setPenalties(Collections.singletonMap(1L, Duration.ofHours(1)));
+        when(bucket.consumeAll(anyString(), anyList(), anyLong())).thenReturn(new long[]{Bucket.BANNED});
+        stalled.countDown();
+
+        filter.run();
+
+        // the bucket's own ban is left to run its course rather than being extended
+        assertEquals(429, RequestContext.getCurrentContext().getResponseStatusCode());
+        assertFalse(banList.isBanned("route:127.0.0.1"));
+    }
+
+}
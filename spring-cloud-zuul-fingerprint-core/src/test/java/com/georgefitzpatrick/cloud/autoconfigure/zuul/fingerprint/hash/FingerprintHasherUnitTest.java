@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util.Bytes;
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class FingerprintHasherUnitTest {
+
+    private static final String JA3 = "771,4865-4866-4867-49195-49199,0-23-65281-10-11-35-16-5-13,29-23-24,0";
+
+    @Test
+    void testMD5() throws NoSuchAlgorithmException {
+        FingerprintHasher hasher = new MD5FingerprintHasher();
+        String expected = Bytes.toHexString(MessageDigest.getInstance("MD5").digest(JA3.getBytes(StandardCharsets.UTF_8)));
+
+        String actual = hasher.hash(JA3);
+
+        assertEquals(expected, actual);
+        assertEquals(expected, hasher.hash(JA3));
+    }
+
+    @Test
+    void testMD5_empty() {
+        String expected = "D41D8CD98F00B204E9800998ECF8427E";
+
+        String actual = new MD5FingerprintHasher().hash("");
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testMD5_nonAscii() throws NoSuchAlgorithmException {
+        String input = "h2|é";
+        String expected = Bytes.toHexString(MessageDigest.getInstance("MD5").digest(input.getBytes(StandardCharsets.UTF_8)));
+
+        String actual = new MD5FingerprintHasher().hash(input);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testMurmur3() {
+        FingerprintHasher hasher = new Murmur3FingerprintHasher();
+
+        for (int length = 0; length <= JA3.length(); length++) {
+            String input = JA3.substring(0, length);
+            String expected = Hashing.murmur3_128().hashString(input, StandardCharsets.UTF_8).toString().toUpperCase();
+
+            String actual = hasher.hash(input);
+
+            assertEquals(expected, actual, input);
+        }
+    }
+
+}
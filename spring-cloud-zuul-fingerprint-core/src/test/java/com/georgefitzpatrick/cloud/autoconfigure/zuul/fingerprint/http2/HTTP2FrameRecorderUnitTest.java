@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.connection.ConnectionRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class HTTP2FrameRecorderUnitTest {
+
+    @Test
+    void testBounded() {
+        HTTP2FrameRecorder frames = new HTTP2FrameRecorder();
+
+        for (int i = 0; i < HTTP2FrameRecorder.MAXIMUM_WINDOW_UPDATES; i++) assertTrue(frames.addWindowUpdate(i));
+        assertFalse(frames.addWindowUpdate(-1));
+
+        assertEquals(HTTP2FrameRecorder.MAXIMUM_WINDOW_UPDATES, frames.windowUpdatesCount());
+        assertEquals(HTTP2FrameRecorder.MAXIMUM_WINDOW_UPDATES - 1,
+                frames.windowUpdate(HTTP2FrameRecorder.MAXIMUM_WINDOW_UPDATES - 1));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> frames.windowUpdate(HTTP2FrameRecorder.MAXIMUM_WINDOW_UPDATES));
+    }
+
+    @Test
+    void testFreeze() {
+        HTTP2FrameRecorder frames = new HTTP2FrameRecorder();
+        frames.addSetting(1, 65536);
+        frames.addPriority(3, true, 0, 200);
+        frames.freeze();
+
+        assertFalse(frames.addSetting(4, 131072));
+        assertFalse(frames.addWindowUpdate(12517377));
+        assertFalse(frames.addPriority(5, false, 0, 100));
+
+        assertEquals(1, frames.settingsCount());
+        assertEquals(0, frames.windowUpdatesCount());
+        assertEquals(1, frames.prioritiesCount());
+        assertTrue(frames.priorityExclusive(0));
+        assertEquals(200, frames.priorityWeight(0));
+        assertEquals("1:65536|0|3:1:0:200|", new HTTP2Fingerprinter(new ConnectionRegistry()).fingerprint(frames));
+    }
+
+}
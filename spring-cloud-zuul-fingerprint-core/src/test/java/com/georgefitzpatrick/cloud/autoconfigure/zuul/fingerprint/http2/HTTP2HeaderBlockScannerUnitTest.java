@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.http2;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class HTTP2HeaderBlockScannerUnitTest {
+
+    @Test
+    void testIndexed() {
+        // :method GET, :authority example.com, :scheme https, :path /, then user-agent
+        ByteBuffer block = block(0x82, literal(0x41, "example.com"), 0x87, 0x84, literal(0x7a, "curl"));
+        assertEquals("m,a,s,p", scan(block));
+
+        // :method GET, :path /, :authority example.com, :scheme https
+        block = block(0x82, 0x84, literal(0x41, "example.com"), 0x87);
+        assertEquals("m,p,a,s", scan(block));
+    }
+
+    @Test
+    void testLiteralName() {
+        // a dynamic table size update, then :path and :method with literal names
+        ByteBuffer block = block(0x3f, 0xe1, 0x1f, 0x00, string(":path"), string("/"), 0x10, string(":method"),
+                string("GET"), 0x00, string("accept"), string("*/*"));
+        assertEquals("p,m", scan(block));
+    }
+
+    @Test
+    void testTruncated() {
+        // the value of :authority continues in a later buffer
+        ByteBuffer block = block(0x82, 0x41, 0x0b, 'e', 'x');
+        assertEquals("m,a", scan(block));
+    }
+
+    private static String scan(ByteBuffer block) {
+        HTTP2FrameRecorder frames = new HTTP2FrameRecorder();
+        HTTP2HeaderBlockScanner.scan(block, frames);
+
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < frames.pseudoHeadersCount(); i++) {
+            if (i > 0) order.append(',');
+            order.append(frames.pseudoHeader(i));
+        }
+
+        return order.toString();
+    }
+
+    private static byte[] literal(int representation, String value) {
+        byte[] string = string(value);
+        byte[] literal = new byte[string.length + 1];
+        literal[0] = (byte) representation;
+        System.arraycopy(string, 0, literal, 1, string.length);
+        return literal;
+    }
+
+    private static byte[] string(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        byte[] string = new byte[bytes.length + 1];
+        string[0] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, string, 1, bytes.length);
+        return string;
+    }
+
+    private static ByteBuffer block(Object... parts) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Object part : parts) {
+            if (part instanceof byte[]) bytes.writeBytes((byte[]) part);
+            else if (part instanceof Character) bytes.write((Character) part);
+            else bytes.write((Integer) part);
+        }
+
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.metrics;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.Dataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.CachingDataset;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.data.local.LocalDataset;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class MicrometerFingerprintMetricsUnitTest {
+
+    private MeterRegistry registry;
+    private MicrometerFingerprintMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new MicrometerFingerprintMetrics(registry, "md5");
+    }
+
+    @Test
+    void testFingerprinted() {
+        metrics.fingerprinted("JA3Fingerprinter", 1_000, true);
+        metrics.fingerprinted("JA3Fingerprinter", 3_000, false);
+
+        assertEquals(2, registry.get("fingerprint.compute").tag("fingerprinter", "JA3Fingerprinter").timer().count());
+        assertEquals(4, registry.get("fingerprint.compute").timer().totalTime(TimeUnit.MICROSECONDS));
+        assertEquals(1, registry.get("fingerprint.absent").counter().count());
+    }
+
+    @Test
+    void testLookedUp() {
+        metrics.lookedUp(1_000, 2, 1);
+        metrics.rejected(1);
+        metrics.rejected(1);
+
+        assertEquals(2, registry.get("fingerprint.dataset.lookups").tag("result", "hit").counter().count());
+        assertEquals(1, registry.get("fingerprint.dataset.lookups").tag("result", "miss").counter().count());
+        assertEquals(2, registry.get("fingerprint.rejected").tag("policy", "1").counter().count());
+    }
+
+    @Test
+    void testRejected() {
+        metrics.rejected(0);
+        metrics.rejected("banned");
+        metrics.rejected("banned");
+        metrics.rejected("fallback");
+
+        assertEquals(2, registry.get("fingerprint.rejected").tag("reason", "banned").counter().count());
+        assertEquals(1, registry.get("fingerprint.rejected").tag("reason", "fallback").counter().count());
+        assertEquals(4, registry.get("fingerprint.rejected").counters().stream().mapToDouble(Counter::count).sum());
+    }
+
+    @Test
+    void testDatasetCache() {
+        Dataset delegate = new LocalDataset();
+        delegate.set("a", "0.5");
+        CachingDataset dataset = new CachingDataset(delegate, 10, Duration.ofMinutes(1), Duration.ofMinutes(1),
+                Duration.ZERO, Runnable::run);
+        MicrometerFingerprintMetrics.datasetCache(dataset).bindTo(registry);
+
+        dataset.get("a");
+        dataset.get("a");
+
+        assertEquals(1, registry.get("fingerprint.dataset.cache").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("fingerprint.dataset.cache").tag("result", "miss").functionCounter().count());
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.net.ssl.SSLSession;
+import java.nio.ByteBuffer;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintConstants.CLIENT_HELLO_ATTRIBUTE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class ClientHelloCaptureUnitTest {
+
+    /*
+     * ClientHello (TLS 1.2, one cipher suite, null compression, no extensions) split over two records:
+     * +-------------------------+------------------------+
+     * | record 1: 16 03 01 0014 | record 2: 16 03 01 0019|
+     * | 01 000029 0303 random.. | ..random 00 0002 C02B  |
+     * |                         | 01 00                  |
+     * +-------------------------+------------------------+
+     */
+    private static final byte[] BODY = body();
+    private static final byte[] RECORDS = records(BODY, 20);
+
+    @Test
+    void testFeed_fragmentedAcrossRecordsAndCalls() {
+        ClientHelloCapture capture = new ClientHelloCapture(new ArrayByteBufferPool());
+        ByteBuffer src = ByteBuffer.wrap(RECORDS);
+
+        for (int i = 0; i < RECORDS.length; i += 3) capture.feed(src, i, Math.min(i + 3, RECORDS.length));
+
+        ClientHelloView clientHello = capture.clientHello();
+        assertNotNull(clientHello);
+        assertEquals(0x0303, clientHello.clientVersion());
+        assertEquals(0xC02B, clientHello.cipherSuite(0));
+        assertFalse(capture.isCapturing());
+    }
+
+    @Test
+    void testFeed_notHandshake() {
+        ClientHelloCapture capture = new ClientHelloCapture(null);
+        byte[] input = {0x17, 0x03, 0x03, 0x00, 0x01, 0x00};
+
+        capture.feed(ByteBuffer.wrap(input), 0, input.length);
+
+        assertTrue(capture.isDone());
+        assertNull(capture.clientHello());
+    }
+
+    @Test
+    void testFeed_notClientHello() {
+        ClientHelloCapture capture = new ClientHelloCapture(null);
+        byte[] input = {0x16, 0x03, 0x03, 0x00, 0x04, 0x02, 0x00, 0x00, 0x00};
+
+        capture.feed(ByteBuffer.wrap(input), 0, input.length);
+
+        assertTrue(capture.isDone());
+        assertNull(capture.clientHello());
+    }
+
+    @Test
+    void testPublish() {
+        ClientHelloCapture capture = new ClientHelloCapture(null);
+        SSLSession session = mock(SSLSession.class);
+
+        capture.feed(ByteBuffer.wrap(RECORDS), 0, RECORDS.length);
+        capture.publish(session);
+        capture.publish(session);
+
+        ArgumentCaptor<Object> value = ArgumentCaptor.forClass(Object.class);
+        verify(session, times(1)).putValue(eq(CLIENT_HELLO_ATTRIBUTE), value.capture());
+        assertSame(capture.clientHello(), value.getValue());
+        assertTrue(capture.isDone());
+        verify(session, never()).removeValue(any());
+    }
+
+    private static byte[] body() {
+        ByteBuffer body = ByteBuffer.allocate(41);
+        body.putShort((short) 0x0303);
+        body.put(new byte[32]);
+        body.put((byte) 0);
+        body.putShort((short) 2).putShort((short) 0xC02B);
+        body.put((byte) 1).put((byte) 0);
+        return body.array();
+    }
+
+    private static byte[] records(byte[] body, int split) {
+        ByteBuffer handshake = ByteBuffer.allocate(4 + body.length);
+        handshake.put((byte) 0x01).put((byte) 0).putShort((short) body.length).put(body);
+
+        byte[] message = handshake.array();
+        ByteBuffer records = ByteBuffer.allocate(10 + message.length);
+        records.put((byte) 0x16).putShort((short) 0x0301).putShort((short) split).put(message, 0, split);
+        records.put((byte) 0x16).putShort((short) 0x0301).putShort((short) (message.length - split))
+                .put(message, split, message.length - split);
+        return records.array();
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake.ClientHelloView;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class JA4FingerprinterUnitTest {
+
+    private static final byte[] PREFIX = {
+            0x03, 0x03,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0x00,
+            0x00, 0x08, 0x0A, 0x0A, 0x13, 0x02, 0x13, 0x01, (byte) 0xC0, 0x2B,
+            0x01, 0x00,
+            0x00, 0x3F
+    };
+
+    private static final byte[] GREASE = {0x2A, 0x2A, 0x00, 0x00};
+    private static final byte[] SERVER_NAME = {0x00, 0x00, 0x00, 0x08, 0x00, 0x06, 0x00, 0x00, 0x03, 'a', '.', 'b'};
+    private static final byte[] ALPN = {
+            0x00, 0x10, 0x00, 0x0E, 0x00, 0x0C,
+            0x02, 'h', '2',
+            0x08, 'h', 't', 't', 'p', '/', '1', '.', '1'
+    };
+    private static final byte[] SUPPORTED_VERSIONS = {0x00, 0x2B, 0x00, 0x07, 0x06, 0x3A, 0x3A, 0x03, 0x04, 0x03, 0x03};
+    private static final byte[] SIGNATURE_ALGORITHMS = {0x00, 0x0D, 0x00, 0x06, 0x00, 0x04, 0x08, 0x04, 0x04, 0x03};
+    private static final byte[] SUPPORTED_GROUPS = {0x00, 0x0A, 0x00, 0x04, 0x00, 0x02, 0x00, 0x1D};
+
+    private final JA4Fingerprinter fingerprinter = new JA4Fingerprinter();
+
+    @Test
+    void testFingerprint() {
+        String expected = "t13d0305h2_5559582ccdc4_47b461364fc6";
+
+        ByteBuffer body = body(PREFIX, GREASE, SERVER_NAME, ALPN, SUPPORTED_VERSIONS, SIGNATURE_ALGORITHMS,
+                SUPPORTED_GROUPS);
+
+        assertEquals(expected, fingerprinter.fingerprint(new ClientHelloView().wrap(body)));
+    }
+
+    @Test
+    void testFingerprint_extensionOrderIgnored() {
+        ByteBuffer body = body(PREFIX, GREASE, SERVER_NAME, ALPN, SUPPORTED_VERSIONS, SIGNATURE_ALGORITHMS,
+                SUPPORTED_GROUPS);
+        ByteBuffer shuffled = body(PREFIX, SUPPORTED_GROUPS, SIGNATURE_ALGORITHMS, ALPN, GREASE, SUPPORTED_VERSIONS,
+                SERVER_NAME);
+
+        String expected = fingerprinter.fingerprint(new ClientHelloView().wrap(body));
+
+        assertEquals(expected, fingerprinter.fingerprint(new ClientHelloView().wrap(shuffled)));
+    }
+
+    @Test
+    void testFingerprint_noExtensions() {
+        byte[] body = {
+                0x03, 0x03,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                0x00,
+                0x00, 0x04, 0x13, 0x01, (byte) 0xC0, 0x2B,
+                0x01, 0x00
+        };
+
+        String expected = "t12i020000_777cda164f4b_000000000000";
+
+        assertEquals(expected, fingerprinter.fingerprint(new ClientHelloView().wrap(ByteBuffer.wrap(body))));
+    }
+
+    private static ByteBuffer body(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) length += part.length;
+
+        ByteBuffer body = ByteBuffer.allocate(length);
+        for (byte[] part : parts) body.put(part);
+
+        return body.flip();
+    }
+
+}
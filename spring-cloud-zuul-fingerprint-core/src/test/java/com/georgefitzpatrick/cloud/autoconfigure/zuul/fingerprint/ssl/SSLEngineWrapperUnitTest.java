@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash.HashAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLHandshakeException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class SSLEngineWrapperUnitTest {
+
+    /*
+     * ClientHello (TLS 1.2, one cipher suite, null compression, no extensions) in a single record, whose JA3
+     * fingerprint is 771,49195,,,
+     */
+    private static final byte[] RECORD = record();
+
+    private final FingerprintHasher hasher = HashAlgorithm.MD5.newHasher();
+
+    private SSLEngine delegate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SSLEngineResult result = new SSLEngineResult(SSLEngineResult.Status.OK,
+                SSLEngineResult.HandshakeStatus.NEED_TASK, RECORD.length, 0);
+
+        delegate = mock(SSLEngine.class);
+        when(delegate.unwrap(any(ByteBuffer.class), any(ByteBuffer[].class), anyInt(), anyInt())).thenReturn(result);
+    }
+
+    @Test
+    void testUnwrap_denied() {
+        JA3DenyList denyList = new JA3DenyList(hasher, Collections.singleton(hasher.hash("771,49195,,,")));
+        SSLEngineWrapper engine = new SSLEngineWrapper(delegate, null, denyList);
+
+        assertThrows(SSLHandshakeException.class, () -> engine.unwrap(ByteBuffer.wrap(RECORD), ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void testUnwrap_allowed() throws Exception {
+        JA3DenyList denyList = new JA3DenyList(hasher, Collections.singleton(hasher.hash("771,4865,,,")));
+        SSLEngineWrapper engine = new SSLEngineWrapper(delegate, null, denyList);
+
+        SSLEngineResult result = engine.unwrap(ByteBuffer.wrap(RECORD), ByteBuffer.allocate(0));
+
+        assertEquals(RECORD.length, result.bytesConsumed());
+    }
+
+    private static byte[] record() {
+        ByteBuffer body = ByteBuffer.allocate(41);
+        body.putShort((short) 0x0303);
+        body.put(new byte[32]);
+        body.put((byte) 0);
+        body.putShort((short) 2).putShort((short) 0xC02B);
+        body.put((byte) 1).put((byte) 0);
+
+        ByteBuffer record = ByteBuffer.allocate(9 + body.capacity());
+        record.put((byte) 0x16).putShort((short) 0x0301).putShort((short) (4 + body.capacity()));
+        record.put((byte) 0x01).put((byte) 0).putShort((short) body.capacity()).put(body.array());
+        return record.array();
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.handshake;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.SSLExtensionType;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.ssl.extension.ECPointFormats;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class ClientHelloUnitTest {
+
+    /*
+     * extensions (wire order):
+     * +--------+--------+--------+--------+--------+
+     * | 0x0017 | 0x000B | 0x1A1A | 0x0017 | 0x7777 |
+     * +--------+--------+--------+--------+--------+
+     * |   ems  | points | grease |   ems  | unknown|
+     * +--------+--------+--------+--------+--------+
+     */
+    private static final byte[] BODY = {
+            0x03, 0x03,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0x00,
+            0x00, 0x04, 0x13, 0x01, (byte) 0xC0, 0x2B,
+            0x01, 0x00,
+            0x00, 0x1B,
+            0x00, 0x17, 0x00, 0x00,
+            0x00, 0x0B, 0x00, 0x03, 0x02, 0x01, 0x00,
+            0x1A, 0x1A, 0x00, 0x00,
+            0x00, 0x17, 0x00, 0x00,
+            0x77, 0x77, 0x00, 0x04, 0x01, 0x02, 0x03, 0x04
+    };
+
+    @Test
+    void testParse_extensionCodesInWireOrder() {
+        int[] expected = {0x0017, 0x000B, 0x1A1A, 0x0017, 0x7777};
+
+        ClientHello actual = ClientHello.PARSER.parse(ByteBuffer.wrap(BODY));
+
+        assertArrayEquals(expected, actual.extensionCodes());
+    }
+
+    @Test
+    void testParse_extensionData() {
+        ClientHello actual = ClientHello.PARSER.parse(ByteBuffer.wrap(BODY));
+
+        assertEquals(4, actual.extensionLength(4));
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), actual.extensionData(4));
+        assertEquals(0, actual.extensionData(3).remaining());
+    }
+
+    @Test
+    void testParse_cipherSuiteCodes() {
+        int[] expected = {0x1301, 0xC02B};
+
+        ClientHello actual = ClientHello.PARSER.parse(ByteBuffer.wrap(BODY));
+
+        assertArrayEquals(expected, actual.cipherSuiteCodes());
+    }
+
+    @Test
+    void testExtensionMap_firstOccurrenceInWireOrder() {
+        List<SSLExtensionType> expected = List.of(
+                SSLExtensionType.EXTENDED_MASTER_SECRET,
+                SSLExtensionType.EC_POINT_FORMATS,
+                SSLExtensionType.GREASE_0x1A1A,
+                SSLExtensionType.UNASSIGNED);
+
+        ClientHello actual = ClientHello.PARSER.parse(ByteBuffer.wrap(BODY));
+
+        assertEquals(expected, List.copyOf(actual.extensionTypes()));
+        ECPointFormats formats = (ECPointFormats) actual.extension(SSLExtensionType.EC_POINT_FORMATS);
+        assertNotNull(formats);
+        assertEquals(List.of(1, 0), formats.formats());
+    }
+
+}
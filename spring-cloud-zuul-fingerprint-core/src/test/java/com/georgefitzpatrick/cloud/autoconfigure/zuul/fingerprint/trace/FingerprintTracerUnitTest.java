@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.trace;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.properties.FingerprintProperties.Trace;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class FingerprintTracerUnitTest {
+
+    private Trace trace;
+    private FingerprintTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        trace = new Trace();
+        trace.setEnabled(true);
+        trace.setSampleRate(1);
+
+        tracer = new FingerprintTracer(() -> trace, 2);
+    }
+
+    @Test
+    void testSample_selection() {
+        trace.getRoutes().add("traced");
+
+        assertNotNull(tracer.sample("traced", "127.0.0.1", "traced:127.0.0.1"));
+        assertNull(tracer.sample("other", "127.0.0.1", "other:127.0.0.1"));
+
+        trace.getOrigins().add("127.0.0.1");
+        assertNotNull(tracer.sample("other", "127.0.0.1", "other:127.0.0.1"));
+
+        trace.setEnabled(false);
+        assertNull(tracer.sample("traced", "127.0.0.1", "traced:127.0.0.1"));
+    }
+
+    @Test
+    void testEmit_ring() {
+        for (int i = 0; i < 3; i++) {
+            TraceRecord record = tracer.sample("route", "origin", "key" + i);
+            record.fingerprint("JA3Fingerprinter", "771,49195,,,", "hash");
+            record.score(0.5);
+            record.outcome("allowed");
+            tracer.emit(record);
+        }
+
+        List<String> records = tracer.snapshot();
+        assertEquals(2, records.size());
+        assertTrue(records.get(0).contains("\"key\":\"key1\""));
+        assertTrue(records.get(1).contains("\"fingerprint\":\"771,49195,,,\""));
+        assertTrue(records.get(1).contains("\"score\":0.5"));
+    }
+
+    @Test
+    void testEndpoint() {
+        FingerprintTraceEndpoint endpoint = new FingerprintTraceEndpoint(tracer);
+        assertEquals("[]", endpoint.traces());
+
+        TraceRecord record = tracer.sample("route", "origin", "key");
+        record.outcome("allowed");
+        tracer.emit(record);
+
+        assertTrue(endpoint.traces().startsWith("[{"));
+        assertTrue(endpoint.traces().endsWith("}]"));
+
+        endpoint.clear();
+        assertEquals("[]", endpoint.traces());
+    }
+
+}
@@ -146,6 +146,18 @@ public class BytesUnitTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void testToHexChars() {
+        byte[] input = {36, 28, 45, 23, 81, 1, 34, 6, 84, 54};
+        char[] output = new char[24];
+        String expected = "1C2D1751";
+
+        int end = Bytes.toHexChars(input, 1, 4, output, 2);
+
+        assertEquals(10, end);
+        assertEquals(expected, new String(output, 2, 8));
+    }
+
     @Test
     void testToString_singleByte() {
         byte input = 36;
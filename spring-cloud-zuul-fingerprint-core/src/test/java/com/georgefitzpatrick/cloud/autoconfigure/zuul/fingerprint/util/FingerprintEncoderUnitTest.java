@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 George Fitzpatrick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.util;
+
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.config.FingerprintHasher;
+import com.georgefitzpatrick.cloud.autoconfigure.zuul.fingerprint.hash.HashAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author George Fitzpatrick
+ */
+public class FingerprintEncoderUnitTest {
+
+    @Test
+    void testIsGrease() {
+        int grease = 0;
+        for (int value = 0; value <= 0xffff; value++) {
+            if (FingerprintEncoder.isGrease(value)) grease++;
+        }
+
+        assertEquals(16, grease);
+        assertTrue(FingerprintEncoder.isGrease(0x0a0a));
+        assertTrue(FingerprintEncoder.isGrease(0xfafa));
+        assertFalse(FingerprintEncoder.isGrease(0x0a1a));
+        assertFalse(FingerprintEncoder.isGrease(0x1301));
+    }
+
+    @Test
+    void testEncode() {
+        FingerprintEncoder encoder = FingerprintEncoder.get()
+                .append(771)
+                .section(',').value(4865, '-').value(49195, '-')
+                .section(',').value(0, '-').value(Long.MIN_VALUE, '-')
+                .section(',');
+
+        assertTrue(encoder.isSectionEmpty());
+        assertEquals("771,4865-49195,0--9223372036854775808,", encoder.toString());
+
+        FingerprintHasher hasher = HashAlgorithm.MD5.newHasher();
+        assertEquals(hasher.hash(encoder.toString()), encoder.hash(hasher));
+
+        // reused by the next fingerprint on this thread
+        assertEquals("", FingerprintEncoder.get().toString());
+    }
+
+}